@@ -107,13 +107,24 @@ object ActionBasics {
      * is generated in Locus Map max. once per 500ms so higher frequency of request will sometimes
      * return same data.
      *
+     * In case, [into] container is defined, data are read into this existing container instead
+     * of creating a new one. Its locations, track statistics and unchanged texts are reused as
+     * well, so periodic refresh of the container allocates almost nothing. Objects obtained
+     * from the container before the call are then updated in place.
+     *
      * @param ctx current context
      * @param lv  required Locus version
+     * @param into existing container to read data into
      * @return loaded update container or 'null' in case of problem
      * @throws RequiredVersionMissingException if Locus in required version is missing
      */
+    @JvmOverloads
     @Throws(RequiredVersionMissingException::class)
-    fun getUpdateContainer(ctx: Context, lv: LocusVersion): UpdateContainer? {
+    fun getUpdateContainer(
+        ctx: Context,
+        lv: LocusVersion,
+        into: UpdateContainer? = null
+    ): UpdateContainer? {
         // get scheme if valid Locus is available
         val scheme = getProviderUriData(
             lv, VersionCode.UPDATE_13,
@@ -124,7 +135,7 @@ object ActionBasics {
         try {
             val data = queryData(ctx, scheme, null, LocusConst.VALUE_UPDATE_CONTAINER)
             if (data?.isNotEmpty() == true) {
-                return UpdateContainer().apply { read(data) }
+                return (into ?: UpdateContainer()).apply { read(data) }
             }
         } catch (e: Exception) {
             logE(tag = TAG, ex = e) { "getUpdateContainer($ctx, $lv)" }
@@ -17,12 +17,15 @@ import android.content.Intent
 import android.net.Uri
 import locus.api.android.features.sendToApp.points.SendPointBase
 import locus.api.android.features.sendToApp.SendToAppHelper
+import locus.api.android.features.sendToApp.SendToAppTransport
 import locus.api.android.objects.LocusVersion
 import locus.api.android.objects.PackPoints
 import locus.api.android.objects.VersionCode
 import locus.api.android.utils.LocusConst
+import locus.api.android.utils.LocusUtils
 import locus.api.android.utils.exceptions.RequiredVersionMissingException
 import locus.api.objects.Storable
+import locus.api.utils.DataWriterBigEndian
 import java.io.File
 import java.util.*
 
@@ -31,13 +34,20 @@ object ActionDisplayPoints {
     // tag for logger
     private const val TAG = "ActionDisplayPoints"
 
+    // extras for points sent over shared memory or chunks
+    private val TRANSPORT_EXTRAS = SendToAppTransport.Extras(
+            LocusConst.INTENT_EXTRA_POINTS_SHARED_MEMORY,
+            LocusConst.INTENT_EXTRA_POINTS_CHUNK)
+
     //*************************************************
     // ONE PACK_POINT OVER INTENT
     //*************************************************
 
     /**
      * Simple way how to send data over intent to Locus. Be aware that intent in Android have some size limits,
-     * so for larger data, use below method [.sendPacksFile]
+     * so larger data are sent over shared memory or split into more intents, which requires
+     * Locus supporting [VersionCode.UPDATE_18]. For older Locus, data are sent directly in the
+     * intent as before, so for really big data, use below method [.sendPacksFile]
      *
      * @param ctx     actual [Context]
      * @param data        [PackPoints] object that should be send to Locus
@@ -87,11 +97,10 @@ object ActionDisplayPoints {
     @Throws(RequiredVersionMissingException::class)
     private fun sendPack(action: String, ctx: Context,
             data: PackPoints, callImport: Boolean, centerOnData: Boolean): Boolean {
-        return ActionDisplayVarious.sendData(action, ctx,
-                Intent().apply {
-                    putExtra(LocusConst.INTENT_EXTRA_POINTS_DATA, data.asBytes)
-                },
-                callImport, centerOnData)
+        return sendPacksAuto(action, ctx, listOf(data), callImport, centerOnData) { dw ->
+            // single pack, skip size of the list
+            putExtra(LocusConst.INTENT_EXTRA_POINTS_DATA, dw.toByteArray(4))
+        }
     }
 
     //*************************************************
@@ -124,11 +133,40 @@ object ActionDisplayPoints {
     @Throws(RequiredVersionMissingException::class)
     private fun sendPacks(action: String, ctx: Context,
             data: List<PackPoints>, callImport: Boolean, centerOnData: Boolean): Boolean {
-        return ActionDisplayVarious.sendData(action, ctx,
-                Intent().apply {
-                    putExtra(LocusConst.INTENT_EXTRA_POINTS_DATA_ARRAY, Storable.getAsBytes(data))
+        return sendPacksAuto(action, ctx, data, callImport, centerOnData) { dw ->
+            putExtra(LocusConst.INTENT_EXTRA_POINTS_DATA_ARRAY, dw.toByteArray())
+        }
+    }
+
+    /**
+     * Send packs over the suitable transport. Size of serialized data is measured first and data
+     * too big for a single intent are sent over the shared memory (Android 8.1+) or split into
+     * more intents, that Locus joins back. This requires Locus app able to receive such data
+     * ([VersionCode.UPDATE_18]), otherwise data are sent directly in the intent as before, limited
+     * by the size of the binder transaction.
+     *
+     * @param intentData fill intent with data, in case they are small enough for the intent
+     */
+    @Throws(RequiredVersionMissingException::class)
+    private fun sendPacksAuto(action: String, ctx: Context,
+            data: List<PackPoints>, callImport: Boolean, centerOnData: Boolean,
+            intentData: Intent.(DataWriterBigEndian) -> Unit): Boolean {
+        val lv = LocusUtils.getActiveVersion(ctx, VersionCode.UPDATE_01)
+                ?: throw RequiredVersionMissingException(VersionCode.UPDATE_01.vcFree)
+        return SendToAppTransport.send(data, TRANSPORT_EXTRAS,
+                canUseExtendedTransport = lv.isVersionValid(VersionCode.UPDATE_18),
+                intentData = intentData,
+                sender = { intent ->
+                    ActionDisplayVarious.sendData(action, ctx, intent, callImport, centerOnData, lv)
                 },
-                callImport, centerOnData)
+                chunkSender = if (action == LocusConst.ACTION_DISPLAY_DATA_SILENTLY) {
+                    // chunks only over ordered broadcasts
+                    { intent ->
+                        ActionDisplayVarious.sendData(action, ctx, intent, false, false, lv)
+                    }
+                } else {
+                    null
+                })
     }
 
     //*************************************************
@@ -248,11 +286,86 @@ object ActionDisplayPoints {
         }
     }
 
+    //*************************************************
+    // MORE PACK_POINTS OVER SHARED MEMORY
+    //*************************************************
+
+    /**
+     * Allow to send data to Locus over the shared memory region. Serialized data are written
+     * into memory shared with Locus and only small handle of the region is sent over the intent,
+     * so neither size limit of the intent nor write to storage apply.
+     *
+     * Method is available since Android 8.1 and for Locus app able to read
+     * [LocusConst.INTENT_EXTRA_POINTS_SHARED_MEMORY] ([VersionCode.UPDATE_18]). Same as with
+     * [sendPacksFile], all data needs to be loaded at once on Locus side.
+     *
+     * **Experimental**: no released Locus app reads shared memory yet, so until a Locus app with
+     * [VersionCode.UPDATE_18] is published, this method always throws
+     * [RequiredVersionMissingException]. Use [sendPacksFile] instead.
+     *
+     * @param ctx existing [Context]
+     * @param lv target Locus app
+     * @param data data to send
+     * @param extraAction extra action that should happen after Locus reads data
+     * @return `true` if data were correctly send, otherwise `false`
+     */
+    @Throws(RequiredVersionMissingException::class)
+    fun sendPacksSharedMemory(ctx: Context, lv: LocusVersion, data: List<PackPoints>,
+            extraAction: ActionDisplayVarious.ExtraAction = ActionDisplayVarious.ExtraAction.CENTER): Boolean {
+        return sendPacksSharedMemory(LocusConst.ACTION_DISPLAY_DATA,
+                ctx, lv, data,
+                extraAction == ActionDisplayVarious.ExtraAction.IMPORT,
+                extraAction == ActionDisplayVarious.ExtraAction.CENTER)
+    }
+
+    /**
+     * Allows to send data to Locus silently without user interaction over the shared memory
+     * region. More in [sendPacksSharedMemory].
+     *
+     * **Experimental**, same as [sendPacksSharedMemory], not usable until a Locus app with
+     * [VersionCode.UPDATE_18] is published.
+     *
+     * @param ctx existing [Context]
+     * @param lv target Locus app
+     * @param data data to send
+     * @param centerOnData `true` to center on data
+     * @return `true` if data were correctly send, otherwise `false`
+     */
+    @Throws(RequiredVersionMissingException::class)
+    fun sendPacksSharedMemorySilent(ctx: Context, lv: LocusVersion, data: List<PackPoints>,
+            centerOnData: Boolean = false): Boolean {
+        return sendPacksSharedMemory(LocusConst.ACTION_DISPLAY_DATA_SILENTLY,
+                ctx, lv, data, false, centerOnData)
+    }
+
+    @Throws(RequiredVersionMissingException::class)
+    private fun sendPacksSharedMemory(action: String, ctx: Context, lv: LocusVersion,
+            data: List<PackPoints>, callImport: Boolean, centerOnData: Boolean): Boolean {
+        // validate version
+        if (!lv.isVersionValid(VersionCode.UPDATE_18)) {
+            throw RequiredVersionMissingException(VersionCode.UPDATE_18)
+        }
+
+        // write data to shared memory and send intent with handle of the region
+        val intent = Intent()
+        if (!SendToAppHelper.sendDataWriteToSharedMemory(intent,
+                        LocusConst.INTENT_EXTRA_POINTS_SHARED_MEMORY, data)) {
+            return false
+        }
+        return ActionDisplayVarious.sendData(action, ctx, intent, callImport, centerOnData, lv)
+    }
+
     // HANDLE RECEIVED DATA
 
     /**
-     * Invert method to [.sendPacksFile] or [.sendPacksFile]. This load serialized data from
-     * a file stored in [Intent].
+     * Invert method to [sendPacksFile] or [sendPacksSharedMemory]. This load serialized data
+     * from a file or shared memory region stored in [Intent].
+     *
+     * Data too big for a single intent may be sent split into more intents. In this case, packs
+     * are returned once the last part is received and for previous parts, result is empty.
+     *
+     * Shared memory and chunks are experimental, they are sent only to Locus app with
+     * [VersionCode.UPDATE_18], that is not released yet.
      *
      * @param ctx    context
      * @param intent intent data
@@ -179,6 +179,7 @@ object ActionDisplayVarious {
      */
     fun hasData(intent: Intent): Boolean {
         // check intent object
+        val extras = intent.extras
         return !(intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_POINTS_DATA) == null
                 && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_POINTS_DATA_ARRAY) == null
                 && intent.getStringExtra(LocusConst.INTENT_EXTRA_POINTS_FILE_PATH) == null
@@ -186,6 +187,10 @@ object ActionDisplayVarious {
                 && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_TRACKS_SINGLE) == null
                 && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_TRACKS_MULTI) == null
                 && intent.getParcelableExtra<Parcelable>(LocusConst.INTENT_EXTRA_TRACKS_FILE_URI) == null
-                && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_CIRCLES_MULTI) == null)
+                && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_CIRCLES_MULTI) == null
+                && extras?.getBinder(LocusConst.INTENT_EXTRA_POINTS_SHARED_MEMORY) == null
+                && extras?.getBinder(LocusConst.INTENT_EXTRA_TRACKS_SHARED_MEMORY) == null
+                && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_POINTS_CHUNK) == null
+                && intent.getByteArrayExtra(LocusConst.INTENT_EXTRA_TRACKS_CHUNK) == null)
     }
 }
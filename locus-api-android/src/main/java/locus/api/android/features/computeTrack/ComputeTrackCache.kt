@@ -0,0 +1,250 @@
+package locus.api.android.features.computeTrack
+
+import android.util.LruCache
+import locus.api.objects.extra.Location
+import java.security.MessageDigest
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.math.roundToLong
+
+/**
+ * Cache of computed routes for [ComputeTrackService] providers, see
+ * [ComputeTrackService.trackCache].
+ *
+ * Routes are identified by [Key] created from [ComputeTrackParameters], with coordinates of
+ * via-points rounded to [toleranceMeters], so nearly identical requests share the result.
+ * Routes are kept serialized, as sent to Locus, in memory LRU cache limited by the size of data
+ * in bytes, optionally also in the persistent [DiskTier]. Routes older than [ttlMs] are not
+ * served.
+ *
+ * @param maxMemoryBytes maximal size of routes in memory
+ * @param ttlMs time to live of a cached route
+ * @param toleranceMeters precision of via-points in keys
+ * @param diskTier optional persistent tier
+ */
+class ComputeTrackCache @JvmOverloads constructor(
+    maxMemoryBytes: Int,
+    private val ttlMs: Long,
+    private val toleranceMeters: Double = 5.0,
+    private val diskTier: DiskTier? = null,
+) {
+
+    /**
+     * Key of the cached route.
+     *
+     * @param id stable identification (hex digest of the normalized parameters)
+     */
+    data class Key(val id: String)
+
+    /**
+     * Cached route.
+     *
+     * @param legs serialized legs of the route, a single leg for routes from
+     * [ComputeTrackService.computeTrack]
+     * @param created time the route was computed
+     */
+    class Route(val legs: List<ByteArray>, val created: Long) {
+
+        /**
+         * Size of all legs in bytes.
+         */
+        val size: Int
+            get() = legs.sumOf { it.size }
+    }
+
+    /**
+     * Persistent tier of the cache.
+     */
+    interface DiskTier {
+
+        /**
+         * Get stored route.
+         *
+         * @return route or `null` if route is not stored
+         */
+        fun get(key: Key): Route?
+
+        /**
+         * Store route.
+         */
+        fun put(key: Key, route: Route)
+
+        /**
+         * Remove stored route.
+         */
+        fun remove(key: Key)
+
+        /**
+         * Remove all stored routes.
+         */
+        fun clear()
+    }
+
+    /**
+     * Snapshot of the cache metrics.
+     */
+    class Stats(
+        // number of routes served from memory
+        val memoryHits: Long,
+        // number of routes served from disk tier
+        val diskHits: Long,
+        // number of routes that had to be computed
+        val misses: Long,
+        // number of cached routes dropped because of their age
+        val expired: Long,
+        // number of routes evicted from memory
+        val evictions: Long,
+        // current size of data in memory in bytes
+        val memorySize: Int
+    ) {
+
+        override fun toString(): String {
+            return "Stats [memoryHits:$memoryHits, diskHits:$diskHits, misses:$misses, " +
+                    "expired:$expired, evictions:$evictions, memorySize:$memorySize]"
+        }
+    }
+
+    // memory cache
+    private val memory = object : LruCache<Key, Route>(maxMemoryBytes) {
+
+        override fun sizeOf(key: Key, value: Route): Int {
+            return value.size
+        }
+    }
+
+    // metrics
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val misses = AtomicLong()
+    private val expired = AtomicLong()
+
+    /**
+     * Current cache metrics.
+     */
+    val stats: Stats
+        get() = Stats(
+            memoryHits.get(), diskHits.get(), misses.get(),
+            expired.get(), memory.evictionCount().toLong(), memory.size()
+        )
+
+    /**
+     * Create key of the route for [params]. Key covers type of the route, flag of instructions,
+     * starting direction (rounded to 10°) and via-points rounded to [toleranceMeters] (the same
+     * step in degrees is used for longitude, so it is finer away from the equator); other values
+     * of via-points (time, accuracy, sensors, ...) are ignored.
+     *
+     * @param params parameters of the route
+     * @param salt additional values that affect the result (e.g. version of provider settings)
+     * @return key of the route or `null` for invalid parameters
+     */
+    @JvmOverloads
+    fun createKey(params: ComputeTrackParameters, salt: String = ""): Key? {
+        if (params.locations.size < 2) {
+            return null
+        }
+
+        // normalize parameters and identify them by the digest of serialized data
+        val step = (toleranceMeters / METERS_PER_DEGREE).coerceAtLeast(MIN_STEP)
+        val normalized = ComputeTrackParameters(
+            params.type,
+            Array(params.locations.size) {
+                val loc = params.locations[it]
+                Location(quantize(loc.latitude, step), quantize(loc.longitude, step))
+            }
+        ).apply {
+            isComputeInstructions = params.isComputeInstructions
+            if (params.hasDirection) {
+                currentDirection = quantize(params.currentDirection.toDouble(), 10.0).toFloat()
+            }
+        }
+        val digest = MessageDigest.getInstance("SHA-256").apply {
+            update(normalized.asBytes ?: return null)
+            update(salt.toByteArray(Charsets.UTF_8))
+        }.digest()
+        return Key(digest.joinToString("") { "%02x".format(it) })
+    }
+
+    /**
+     * Get cached route.
+     *
+     * @param key key of the route
+     * @return cached route or `null` if route is not cached or expired
+     */
+    fun get(key: Key): Route? {
+        // check memory
+        var route = memory.get(key)
+        if (route != null) {
+            if (isValid(route)) {
+                memoryHits.incrementAndGet()
+                return route
+            }
+            expired.incrementAndGet()
+            remove(key)
+        }
+
+        // check disk
+        route = diskTier?.get(key)
+        if (route != null) {
+            if (isValid(route)) {
+                diskHits.incrementAndGet()
+                memory.put(key, route)
+                return route
+            }
+            expired.incrementAndGet()
+            diskTier?.remove(key)
+        }
+        misses.incrementAndGet()
+        return null
+    }
+
+    /**
+     * Store computed route.
+     *
+     * @param key key of the route
+     * @param legs serialized legs of the route
+     */
+    fun put(key: Key, legs: List<ByteArray>) {
+        if (legs.isEmpty()) {
+            return
+        }
+        val route = Route(legs, System.currentTimeMillis())
+        memory.put(key, route)
+        diskTier?.put(key, route)
+    }
+
+    /**
+     * Remove cached route from memory and disk tier.
+     */
+    fun remove(key: Key) {
+        memory.remove(key)
+        diskTier?.remove(key)
+    }
+
+    /**
+     * Remove all cached routes from memory and disk tier, e.g. once settings of the provider
+     * change.
+     */
+    fun clear() {
+        memory.evictAll()
+        diskTier?.clear()
+    }
+
+    private fun isValid(route: Route): Boolean {
+        return System.currentTimeMillis() - route.created in 0 until ttlMs
+    }
+
+    companion object {
+
+        // approximate length of a degree of latitude in meters
+        private const val METERS_PER_DEGREE = 111_320.0
+
+        // minimal step of coordinates, precision of stored locations
+        private const val MIN_STEP = 1e-7
+
+        /**
+         * Round [value] to the nearest multiple of [step].
+         */
+        private fun quantize(value: Double, step: Double): Double {
+            return (value / step).roundToLong() * step
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package locus.api.android.features.computeTrack
+
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+
+/**
+ * Disk tier of [ComputeTrackCache] that stores every route in its own file in [dir].
+ *
+ * Once the size of stored routes exceeds [maxBytes], the oldest routes are removed.
+ *
+ * @param dir directory for stored routes, e.g. a subdirectory of `Context.getCacheDir`
+ * @param maxBytes maximal size of stored routes
+ */
+class ComputeTrackCacheDir(
+    private val dir: File,
+    private val maxBytes: Long
+) : ComputeTrackCache.DiskTier {
+
+    // size of stored routes, `-1` if not yet known
+    private var size = -1L
+
+    @Synchronized
+    override fun get(key: ComputeTrackCache.Key): ComputeTrackCache.Route? {
+        val file = getFile(key)
+        if (!file.exists()) {
+            return null
+        }
+        return try {
+            DataInputStream(file.inputStream().buffered()).use { dis ->
+                if (dis.readInt() != MAGIC) {
+                    throw IOException("Invalid file")
+                }
+                val created = dis.readLong()
+
+                // validate counts against the file, so damaged file never allocates too much
+                var remaining = file.length() - HEADER_SIZE
+                val count = dis.readInt()
+                if (count < 0 || count > remaining / LEG_HEADER_SIZE) {
+                    throw IOException("Invalid number of legs: $count")
+                }
+                remaining -= count * LEG_HEADER_SIZE
+                val legs = List(count) {
+                    val length = dis.readInt()
+                    if (length < 0 || length > remaining) {
+                        throw IOException("Invalid size of leg: $length")
+                    }
+                    remaining -= length
+                    ByteArray(length).apply { dis.readFully(this) }
+                }
+                ComputeTrackCache.Route(legs, created)
+            }
+        } catch (e: IOException) {
+            logW(tag = TAG) { "get($key), invalid stored route: ${e.message}" }
+            remove(key)
+            null
+        }
+    }
+
+    @Synchronized
+    override fun put(key: ComputeTrackCache.Key, route: ComputeTrackCache.Route) {
+        try {
+            dir.mkdirs()
+            remove(key)
+            val size = getSize()
+
+            // write into temporary file, so incomplete routes are never read
+            val file = getFile(key)
+            val tmp = File(dir, file.name + ".tmp")
+            DataOutputStream(tmp.outputStream().buffered()).use { dos ->
+                dos.writeInt(MAGIC)
+                dos.writeLong(route.created)
+                dos.writeInt(route.legs.size)
+                for (leg in route.legs) {
+                    dos.writeInt(leg.size)
+                    dos.write(leg)
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete()
+                throw IOException("Unable to rename $tmp")
+            }
+            this.size = size + file.length()
+            trim(file)
+        } catch (e: IOException) {
+            logE(tag = TAG, ex = e) { "put($key)" }
+        }
+    }
+
+    @Synchronized
+    override fun remove(key: ComputeTrackCache.Key) {
+        val file = getFile(key)
+        if (file.exists()) {
+            val length = file.length()
+            if (file.delete() && size >= 0) {
+                size -= length
+            }
+        }
+    }
+
+    @Synchronized
+    override fun clear() {
+        listFiles().forEach { it.delete() }
+        size = 0L
+    }
+
+    //*************************************************
+    // PRIVATE TOOLS
+    //*************************************************
+
+    private fun getFile(key: ComputeTrackCache.Key): File {
+        return File(dir, key.id + SUFFIX)
+    }
+
+    private fun listFiles(): List<File> {
+        return dir.listFiles()?.filter { it.isFile && it.name.endsWith(SUFFIX) }
+            ?: emptyList()
+    }
+
+    /**
+     * Get size of stored routes, counted on the first call.
+     */
+    private fun getSize(): Long {
+        if (size < 0L) {
+            size = listFiles().sumOf { it.length() }
+        }
+        return size
+    }
+
+    /**
+     * Remove the oldest routes except [keep], until their size fits into [maxBytes].
+     */
+    private fun trim(keep: File) {
+        if (getSize() <= maxBytes) {
+            return
+        }
+        for (file in listFiles().filter { it != keep }.sortedBy { it.lastModified() }) {
+            val length = file.length()
+            if (file.delete()) {
+                size -= length
+            }
+            if (size <= maxBytes) {
+                break
+            }
+        }
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "ComputeTrackCacheDir"
+
+        // identification of the route file
+        private const val MAGIC = 0x4C435452
+
+        // suffix of route files
+        private const val SUFFIX = ".route"
+
+        // size of the file header: magic, time of creation and number of legs
+        private const val HEADER_SIZE = 16L
+
+        // size of the leg header: size of the leg
+        private const val LEG_HEADER_SIZE = 4L
+    }
+}
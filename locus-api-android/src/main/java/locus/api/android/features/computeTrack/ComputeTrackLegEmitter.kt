@@ -0,0 +1,148 @@
+package locus.api.android.features.computeTrack
+
+import android.os.RemoteException
+import com.asamm.loggerV2.logW
+import locus.api.android.objects.ParcelableContainer
+import locus.api.objects.geoData.Track
+
+/**
+ * Sends legs of a progressively computed track to Locus, see
+ * [ComputeTrackService.computeTrackLegs].
+ *
+ * Every leg is serialized on its own and sent in parts of at most [MAX_PART_SIZE] bytes, so
+ * even a long route never has to fit into a single binder transaction. Parts are sent
+ * synchronously, one after another, so the provider never gets ahead of Locus. Once the request
+ * is cancelled by Locus or expires, further legs are not sent.
+ *
+ * @param requestId ID of the request assigned by Locus
+ * @param callback callback of Locus
+ */
+class ComputeTrackLegEmitter internal constructor(
+    val requestId: Int,
+    private val callback: IComputeTrackCallback,
+) {
+
+    // task that computes the request
+    @Volatile
+    internal var task: ComputeTrackScheduler.Task<*>? = null
+
+    // index of the next expected leg
+    private var nextLeg = 0
+
+    // sent legs, collected for the cache
+    internal var recordedLegs: MutableList<ByteArray>? = null
+
+    /**
+     * Number of legs sent so far.
+     */
+    val sentLegs: Int
+        get() = nextLeg
+
+    /**
+     * Flag if Locus is no longer available or the request is finished, further legs are not sent.
+     */
+    @Volatile
+    var isClosed: Boolean = false
+        private set
+
+    /**
+     * Flag if request was cancelled by Locus or expired, provider should stop the computation.
+     */
+    val isCancelled: Boolean
+        get() = task?.isCancelledOrExpired ?: false
+
+    /**
+     * Send a single leg to Locus. Legs have to be sent in order, starting with `0`.
+     *
+     * The leg contains geometry from the start via-point of the leg up to its end via-point,
+     * inclusive (Locus joins legs without the duplicated via-points); navigation waypoints refer
+     * (by `parameterRteIndex`) to points of the leg.
+     *
+     * @param legIndex index of the leg
+     * @param legCount total number of legs of the track
+     * @param leg computed leg
+     * @return `false` if leg was not sent, because Locus is no longer available or the request
+     * was cancelled
+     */
+    @Synchronized
+    fun emitLeg(legIndex: Int, legCount: Int, leg: Track): Boolean {
+        require(legIndex == nextLeg) { "Leg $legIndex emitted, expected $nextLeg" }
+        require(legIndex < legCount) { "Leg $legIndex out of $legCount legs" }
+        if (isClosed || isCancelled) {
+            return false
+        }
+
+        // serialize and send leg
+        val data = leg.asBytes
+            ?: throw IllegalStateException("Unable to serialize leg $legIndex")
+        return sendLeg(legIndex, legCount, data)
+    }
+
+    /**
+     * Send already serialized leg, e.g. from [ComputeTrackCache].
+     */
+    @Synchronized
+    internal fun emitLegData(legIndex: Int, legCount: Int, data: ByteArray): Boolean {
+        if (isClosed || isCancelled) {
+            return false
+        }
+        return sendLeg(legIndex, legCount, data)
+    }
+
+    /**
+     * Send serialized leg in parts.
+     */
+    private fun sendLeg(legIndex: Int, legCount: Int, data: ByteArray): Boolean {
+        val partCount = ((data.size + MAX_PART_SIZE - 1) / MAX_PART_SIZE).coerceAtLeast(1)
+        try {
+            for (part in 0 until partCount) {
+                val from = part * MAX_PART_SIZE
+                val bytes = if (partCount == 1) {
+                    data
+                } else {
+                    data.copyOfRange(from, minOf(from + MAX_PART_SIZE, data.size))
+                }
+                callback.onTrackLegPart(
+                    requestId, legIndex, legCount, part, partCount, ParcelableContainer(bytes)
+                )
+            }
+        } catch (e: RemoteException) {
+            logW(tag = TAG) {
+                "emitLeg($legIndex, $legCount), Locus is not available: ${e.message}"
+            }
+            isClosed = true
+            return false
+        }
+        recordedLegs?.add(data)
+        nextLeg++
+        return true
+    }
+
+    /**
+     * Report end of the computation to Locus. Called by [ComputeTrackService] once the
+     * computation ends or the request is cancelled.
+     */
+    @Synchronized
+    internal fun finish(success: Boolean) {
+        if (isClosed) {
+            return
+        }
+        try {
+            callback.onTrackFinished(requestId, success)
+        } catch (e: RemoteException) {
+            logW(tag = TAG) { "finish($success), Locus is not available: ${e.message}" }
+        }
+        isClosed = true
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "ComputeTrackLegEmitter"
+
+        /**
+         * Maximal size of serialized data sent in a single transaction.
+         */
+        const val MAX_PART_SIZE = 64 * 1024
+    }
+}
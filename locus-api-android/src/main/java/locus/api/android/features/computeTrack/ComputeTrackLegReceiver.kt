@@ -0,0 +1,142 @@
+package locus.api.android.features.computeTrack
+
+import android.util.SparseArray
+import com.asamm.loggerV2.logE
+import locus.api.android.objects.ParcelableContainer
+import locus.api.objects.geoData.Track
+import java.io.ByteArrayOutputStream
+
+/**
+ * Callback for [IComputeTrackService.computeTrackLegs] used by Locus. Joins parts of received
+ * legs and passes them as [Track] objects to [onLeg].
+ *
+ * Binder calls of a single provider are delivered in order, but possibly on different binder
+ * threads; implementation of [onLeg] and [onFinished] has to be thread-safe.
+ *
+ * Once any part of a request is lost or a leg can't be read, further legs of the request are
+ * ignored and [onFinished] reports failure.
+ */
+abstract class ComputeTrackLegReceiver : IComputeTrackCallback.Stub() {
+
+    /**
+     * Parts of a not yet complete leg.
+     */
+    private class PendingLeg(val legIndex: Int, val partCount: Int) {
+
+        // joined data
+        val data = ByteArrayOutputStream()
+
+        // index of the next expected part
+        var nextPart = 0
+    }
+
+    // incomplete legs by request ID
+    private val pending = SparseArray<PendingLeg>()
+
+    // IDs of requests with lost or invalid leg, guarded by `pending`
+    private val failed = HashSet<Int>()
+
+    override fun onTrackLegPart(
+        requestId: Int,
+        legIndex: Int,
+        legCount: Int,
+        partIndex: Int,
+        partCount: Int,
+        data: ParcelableContainer?,
+    ) {
+        val bytes = data?.data
+        synchronized(pending) {
+            if (requestId in failed) {
+                return
+            }
+            if (bytes == null) {
+                setFailed(requestId)
+            }
+        }
+        if (bytes == null) {
+            logE(tag = TAG) { "onTrackLegPart($requestId, $legIndex), missing data" }
+            return
+        }
+
+        // single part, no joining needed
+        val legData = if (partCount == 1) {
+            bytes
+        } else {
+            synchronized(pending) {
+                var leg = pending[requestId]
+                if (partIndex == 0 || leg == null || leg.legIndex != legIndex) {
+                    leg = PendingLeg(legIndex, partCount)
+                    pending.put(requestId, leg)
+                }
+                if (leg.nextPart != partIndex) {
+                    logE(tag = TAG) {
+                        "onTrackLegPart($requestId, $legIndex), unexpected part $partIndex"
+                    }
+                    setFailed(requestId)
+                    return
+                }
+                leg.data.write(bytes)
+                leg.nextPart++
+                if (leg.nextPart < leg.partCount) {
+                    return
+                }
+                pending.remove(requestId)
+                leg.data.toByteArray()
+            }
+        }
+
+        // deliver the leg
+        val track = try {
+            Track().apply { read(legData) }
+        } catch (e: Exception) {
+            logE(tag = TAG, ex = e) { "onTrackLegPart($requestId, $legIndex), invalid leg" }
+            synchronized(pending) {
+                setFailed(requestId)
+            }
+            return
+        }
+        onLeg(requestId, legIndex, legCount, track)
+    }
+
+    override fun onTrackFinished(requestId: Int, success: Boolean) {
+        val complete = synchronized(pending) {
+            pending.remove(requestId)
+            !failed.remove(requestId)
+        }
+        onFinished(requestId, success && complete)
+    }
+
+    /**
+     * Mark request with [requestId] as failed and drop its incomplete leg. Called under the lock
+     * of `pending`.
+     */
+    private fun setFailed(requestId: Int) {
+        pending.remove(requestId)
+        failed.add(requestId)
+    }
+
+    /**
+     * Single leg of the track was received.
+     *
+     * @param requestId ID of the request
+     * @param legIndex index of the leg
+     * @param legCount total number of legs of the track
+     * @param leg received leg
+     */
+    abstract fun onLeg(requestId: Int, legIndex: Int, legCount: Int, leg: Track)
+
+    /**
+     * Computation of the request finished, all legs were received.
+     *
+     * @param requestId ID of the request
+     * @param success `false` if provider failed to compute the track, or any of its legs was
+     * lost or invalid
+     */
+    abstract fun onFinished(requestId: Int, success: Boolean)
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "ComputeTrackLegReceiver"
+    }
+}
@@ -77,11 +77,9 @@ class ComputeTrackParameters() : Storable() {
 
         // read locations
         val size = dr.readInt()
-        val locs = arrayListOf<Location>()
-        for (i in 0 until size) {
-            locs.add(Location().apply { read(dr) })
+        locations = Array(size) {
+            Location().apply { read(dr) }
         }
-        locations = locs.toTypedArray()
 
         // V1
         if (version >= 1) {
@@ -0,0 +1,37 @@
+package locus.api.android.features.computeTrack
+
+/**
+ * Policy of concurrent route requests of [ComputeTrackService], see
+ * [ComputeTrackService.computePolicy].
+ *
+ * @property maxParallel maximal number of requests computed at once, others wait in the queue
+ * @property isLatestWins `true` if a new request cancels all older not yet finished requests
+ */
+class ComputeTrackPolicy private constructor(
+    val maxParallel: Int,
+    val isLatestWins: Boolean,
+) {
+
+    override fun toString(): String {
+        return "ComputeTrackPolicy(maxParallel=$maxParallel, isLatestWins=$isLatestWins)"
+    }
+
+    companion object {
+
+        /**
+         * Only the latest request matters: a new request cancels all older ones, so a provider
+         * never computes a route the user already changed. Not suitable for Locus versions that
+         * compute multi-segment plans by parallel `computeTrack` calls.
+         */
+        @JvmField
+        val LATEST_WINS = ComputeTrackPolicy(1, true)
+
+        /**
+         * Compute at most [maxParallel] requests at once, in order of their arrival.
+         */
+        @JvmStatic
+        fun parallel(maxParallel: Int): ComputeTrackPolicy {
+            return ComputeTrackPolicy(maxParallel.coerceAtLeast(1), false)
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package locus.api.android.features.computeTrack
+
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+/**
+ * Runs route requests of [ComputeTrackService] on a pool of worker threads, according to
+ * [ComputeTrackPolicy]. Every request has its ID, may be cancelled and optionally expires after
+ * a timeout. Cancellation is cooperative: the running computation is interrupted and
+ * [isCurrentCancelled] starts to return `true`, but it is up to the provider to stop. Expired
+ * request is cancelled the same way, also when it is already running.
+ *
+ * @param policy policy of concurrent requests
+ * @param timeoutMs timeout of a single request since its arrival, `0` for no timeout
+ */
+internal class ComputeTrackScheduler(
+    private val policy: ComputeTrackPolicy,
+    private val timeoutMs: Long,
+) {
+
+    /**
+     * Single request waiting or running on the worker thread.
+     *
+     * @param requestId ID of the request
+     * @param compute computation itself
+     * @param onCancelled called once request is cancelled before it finishes
+     */
+    inner class Task<T>(
+        val requestId: Int,
+        compute: () -> T,
+        private val onCancelled: (() -> Unit)?,
+    ) : FutureTask<T>(compute) {
+
+        // planned cancellation once the request expires
+        @Volatile
+        internal var expiration: ScheduledFuture<*>? = null
+
+        // time the request expires, `0` for no timeout
+        private val deadline = if (timeoutMs > 0L) {
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs)
+        } else {
+            0L
+        }
+
+        /**
+         * Flag if request was cancelled or expired.
+         */
+        val isCancelledOrExpired: Boolean
+            get() = isCancelled || (deadline != 0L && System.nanoTime() - deadline > 0L)
+
+        override fun run() {
+            // expired while waiting in the queue
+            if (isCancelledOrExpired) {
+                cancel(false)
+                return
+            }
+            current.set(this)
+            try {
+                super.run()
+            } finally {
+                current.remove()
+            }
+        }
+
+        override fun done() {
+            expiration?.cancel(false)
+            synchronized(tasks) {
+                if (tasks[requestId] === this) {
+                    tasks.remove(requestId)
+                }
+            }
+            if (isCancelled) {
+                onCancelled?.invoke()
+            }
+        }
+    }
+
+    // executor limited by the policy
+    private val executor = ThreadPoolExecutor(
+        policy.maxParallel, policy.maxParallel,
+        30L, TimeUnit.SECONDS,
+        LinkedBlockingQueue()
+    ).apply { allowCoreThreadTimeOut(true) }
+
+    // timer that cancels expired requests, only with timeout
+    private val timer = if (timeoutMs > 0L) {
+        ScheduledThreadPoolExecutor(1).apply {
+            setKeepAliveTime(30L, TimeUnit.SECONDS)
+            allowCoreThreadTimeOut(true)
+            removeOnCancelPolicy = true
+        }
+    } else {
+        null
+    }
+
+    // waiting and running requests by ID
+    private val tasks = HashMap<Int, Task<*>>()
+
+    // counter of IDs for requests without ID assigned by Locus
+    private var lastLocalId = 0
+
+    /**
+     * Queue request that reports its result by itself (e.g. over a callback). Request that does
+     * not finish within the timeout is cancelled, also when it is already running.
+     *
+     * @param requestId ID of the request
+     * @param onCancelled called once request is cancelled or expires before it finishes
+     * @param compute computation itself, receives its task to check cancellation
+     * @return queued task
+     */
+    fun execute(
+        requestId: Int,
+        onCancelled: () -> Unit,
+        compute: (Task<*>) -> Unit,
+    ): Task<Unit> {
+        lateinit var task: Task<Unit>
+        task = Task(requestId, { compute(task) }, onCancelled)
+        submit(task)
+        timer?.let {
+            task.expiration = it.schedule({
+                if (!task.isDone) {
+                    logW(tag = TAG) { "execute(), request $requestId expired after $timeoutMs ms" }
+                    task.cancel(true)
+                }
+            }, timeoutMs, TimeUnit.MILLISECONDS)
+        }
+        return task
+    }
+
+    /**
+     * Compute request and wait for its result. Used by blocking binder calls.
+     *
+     * @param compute computation itself
+     * @return result of the computation, `null` if it failed, was cancelled or expired
+     */
+    fun <T> compute(compute: () -> T?): T? {
+        val requestId = synchronized(tasks) {
+            // negative IDs never collide with IDs assigned by Locus
+            lastLocalId = if (lastLocalId == Int.MIN_VALUE) -1 else lastLocalId - 1
+            lastLocalId
+        }
+        val task = Task(requestId, compute, null)
+        submit(task)
+        return try {
+            if (timeoutMs > 0L) {
+                task.get(timeoutMs, TimeUnit.MILLISECONDS)
+            } else {
+                task.get()
+            }
+        } catch (e: TimeoutException) {
+            logW(tag = TAG) { "compute(), request expired after $timeoutMs ms" }
+            task.cancel(true)
+            null
+        } catch (e: CancellationException) {
+            null
+        } catch (e: InterruptedException) {
+            task.cancel(true)
+            Thread.currentThread().interrupt()
+            null
+        } catch (e: ExecutionException) {
+            logE(tag = TAG, ex = e.cause) { "compute()" }
+            null
+        }
+    }
+
+    /**
+     * Cancel request with [requestId], if it is not finished yet.
+     *
+     * @return `true` if request was found and cancelled
+     */
+    fun cancel(requestId: Int): Boolean {
+        val task = synchronized(tasks) {
+            tasks.remove(requestId)
+        } ?: return false
+        cancelTasks(listOf(task))
+        return true
+    }
+
+    /**
+     * Cancel all requests and stop worker threads.
+     */
+    fun shutdown() {
+        val obsolete = synchronized(tasks) {
+            val obsolete = tasks.values.toList()
+            tasks.clear()
+            obsolete
+        }
+        cancelTasks(obsolete)
+        executor.shutdownNow()
+        timer?.shutdownNow()
+    }
+
+    private fun submit(task: Task<*>) {
+        val obsolete = synchronized(tasks) {
+            val obsolete = if (policy.isLatestWins) {
+                tasks.values.toList()
+            } else {
+                listOfNotNull(tasks[task.requestId])
+            }
+            if (policy.isLatestWins) {
+                tasks.clear()
+            }
+            tasks[task.requestId] = task
+            obsolete
+        }
+        cancelTasks(obsolete)
+        executor.execute(task)
+    }
+
+    private fun cancelTasks(obsolete: List<Task<*>>) {
+        if (obsolete.isEmpty()) {
+            return
+        }
+        obsolete.forEach { it.cancel(true) }
+        executor.purge()
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "ComputeTrackScheduler"
+
+        // task running on the current thread
+        private val current = ThreadLocal<ComputeTrackScheduler.Task<*>>()
+
+        /**
+         * Flag if request running on the current thread was cancelled or expired. `false`
+         * outside of worker threads.
+         */
+        fun isCurrentCancelled(): Boolean {
+            return current.get()?.isCancelledOrExpired ?: false
+        }
+    }
+}
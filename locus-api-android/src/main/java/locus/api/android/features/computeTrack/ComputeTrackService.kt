@@ -6,22 +6,38 @@ package locus.api.android.features.computeTrack
 
 import android.app.Service
 import android.content.Intent
+import android.os.Binder
 import android.os.IBinder
+import android.os.Parcel
 import com.asamm.loggerV2.logE
 import com.asamm.loggerV2.logW
 import locus.api.android.objects.LocusVersion
 import locus.api.android.objects.ParcelableContainer
 import locus.api.android.utils.LocusUtils
+import locus.api.android.utils.metrics.BinderMetrics
 import locus.api.objects.extra.GeoDataExtra
 import locus.api.objects.geoData.Track
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Base class for compute route service.
  */
 abstract class ComputeTrackService : Service() {
 
+    // scheduler of route requests, created on the first request
+    private var scheduler: ComputeTrackScheduler? = null
+
+    // versions of Locus bound to the service, by UID of the caller
+    private val boundVersions = ConcurrentHashMap<Int, LocusVersion>()
+
     private val binder = object : IComputeTrackService.Stub() {
 
+        override fun onTransact(code: Int, data: Parcel, reply: Parcel?, flags: Int): Boolean {
+            return BinderMetrics.measure(TAG, BINDER_METHODS, code, data, reply) {
+                super.onTransact(code, data, reply, flags)
+            }
+        }
+
         override fun getAttribution(): String {
             return this@ComputeTrackService.attribution
         }
@@ -45,25 +61,91 @@ abstract class ComputeTrackService : Service() {
                 val params = ComputeTrackParameters()
                 params.read(containerData!!)
 
-                // get active running Locus
-                val lv = LocusUtils.getActiveVersion(this@ComputeTrackService)
-                if (lv == null) {
-                    logW(tag = TAG) { "Problem with finding running Locus instance" }
-                    return null
+                // serve the route from the cache, only routes computed as a whole fit here
+                val cache = trackCache
+                val key = cache?.let { getTrackCacheKey(params) }
+                if (key != null) {
+                    cache.get(key)?.legs?.singleOrNull()?.let {
+                        return ParcelableContainer(it)
+                    }
                 }
 
-                // compute track itself
-                val track = this@ComputeTrackService.computeTrack(lv, params)
-                return if (track != null) {
-                    ParcelableContainer(track.asBytes)
-                } else {
-                    null
+                // get active running Locus
+                val lv = getLocusVersion()
+                    ?: return null
+
+                // compute track itself on the worker thread
+                val track = getScheduler().compute {
+                    this@ComputeTrackService.computeTrack(lv, params)
                 }
+                val data = track?.asBytes
+                    ?: return null
+                if (key != null) {
+                    cache.put(key, listOf(data))
+                }
+                return ParcelableContainer(data)
             } catch (e: Exception) {
                 logE(tag = TAG, ex = e) { "computeTrack($trackParams)" }
+                BinderMetrics.reportFailure()
                 return null
             }
         }
+
+        override fun computeTrackLegs(
+            requestId: Int,
+            trackParams: ParcelableContainer?,
+            callback: IComputeTrackCallback?,
+        ): Boolean {
+            // check request
+            val data = trackParams?.data
+            if (callback == null || data == null) {
+                logW(tag = TAG) { "computeTrackLegs($requestId, $trackParams), invalid request" }
+                BinderMetrics.reportFailure()
+                return false
+            }
+            val params = try {
+                ComputeTrackParameters().apply { read(data) }
+            } catch (e: Exception) {
+                logE(tag = TAG, ex = e) { "computeTrackLegs($requestId, $trackParams)" }
+                BinderMetrics.reportFailure()
+                return false
+            }
+
+            // compute on the worker thread, caller is known only on the binder thread
+            val lv = getLocusVersion()
+            val emitter = ComputeTrackLegEmitter(requestId, callback)
+            getScheduler().execute(requestId, { emitter.finish(false) }) { task ->
+                emitter.task = task
+                computeLegs(lv, params, emitter)
+            }
+            return true
+        }
+
+        override fun cancelComputeTrack(requestId: Int) {
+            synchronized(this@ComputeTrackService) {
+                scheduler
+            }?.cancel(requestId)
+        }
+
+        override fun setLocusVersion(locusVersion: ParcelableContainer?): Boolean {
+            val uid = Binder.getCallingUid()
+            val lv = try {
+                locusVersion?.data?.let { LocusVersion().apply { read(it) } }
+            } catch (e: Exception) {
+                logE(tag = TAG, ex = e) { "setLocusVersion($locusVersion)" }
+                null
+            }
+
+            // accept only version of the calling app
+            val packages = packageManager.getPackagesForUid(uid)
+            if (lv == null || packages == null || lv.packageName !in packages) {
+                logW(tag = TAG) { "setLocusVersion($lv), invalid version of caller $uid" }
+                BinderMetrics.reportFailure()
+                return false
+            }
+            boundVersions[uid] = lv
+            return true
+        }
     }
 
     /**
@@ -100,12 +182,72 @@ abstract class ComputeTrackService : Service() {
     open val numOfTransitPoints: Int
         get() = 0
 
+    /**
+     * Policy of concurrent requests: [ComputeTrackPolicy.parallel] (by default limited by
+     * number of CPU cores) or [ComputeTrackPolicy.LATEST_WINS]. Read once, on the first request.
+     */
+    open val computePolicy: ComputeTrackPolicy
+        get() = ComputeTrackPolicy.parallel(
+            Runtime.getRuntime().availableProcessors().coerceIn(1, 4)
+        )
+
+    /**
+     * Timeout of a single request in milliseconds, measured since its arrival. Expired request
+     * is cancelled and fails. `0` (default) for no timeout. Read once, on the first request.
+     */
+    open val computeTimeoutMs: Long
+        get() = 0L
+
+    /**
+     * Flag if request computed on the current thread was cancelled by Locus, replaced by a newer
+     * request ([ComputeTrackPolicy.LATEST_WINS]) or expired ([computeTimeoutMs]). Long running
+     * computation should check it regularly and return `null` once it is set; the worker thread
+     * is interrupted as well.
+     */
+    val isRequestCancelled: Boolean
+        get() = ComputeTrackScheduler.isCurrentCancelled()
+
+    /**
+     * Optional cache of computed routes. Once defined, repeated requests with the same key
+     * ([getTrackCacheKey]) are served from the cache and [computeTrack] / [computeTrackLegs]
+     * are not called. Return the same instance on every call.
+     */
+    open val trackCache: ComputeTrackCache?
+        get() = null
+
+    /**
+     * Get key of the route in [trackCache]. By default, key is created from all parameters
+     * by [ComputeTrackCache.createKey]; override to add provider settings that affect the
+     * result (as `salt`), or return `null` for requests that should not be cached.
+     *
+     * @param params parameters of the route
+     * @return key of the route or `null` to not use the cache
+     */
+    open fun getTrackCacheKey(params: ComputeTrackParameters): ComputeTrackCache.Key? {
+        return trackCache?.createKey(params)
+    }
+
     override fun onBind(intent: Intent): IBinder? {
         return binder
     }
 
+    override fun onUnbind(intent: Intent): Boolean {
+        // all clients are gone, versions are received again with the next bind
+        boundVersions.clear()
+        return super.onUnbind(intent)
+    }
+
+    override fun onDestroy() {
+        super.onDestroy()
+        synchronized(this) {
+            scheduler?.shutdown()
+            scheduler = null
+        }
+    }
+
     /**
-     * Main feature that perform routing itself.
+     * Main feature that perform routing itself. Called on a worker thread, see [computePolicy];
+     * check [isRequestCancelled] during long computation.
      *
      * @param lv     Locus version that is requesting routing.
      * @param params parameters requested by Locus for a new track.
@@ -113,9 +255,126 @@ abstract class ComputeTrackService : Service() {
      */
     abstract fun computeTrack(lv: LocusVersion?, params: ComputeTrackParameters): Track?
 
+    /**
+     * Progressive variant of [computeTrack], used by Locus versions that display partial
+     * results. Track is sent leg by leg over [emitter] as soon as every leg is computed;
+     * a leg is usually the part of the track between two consecutive
+     * [ComputeTrackParameters.locations]. Called on a worker thread, see [computePolicy];
+     * stop once [ComputeTrackLegEmitter.isCancelled] is set or a leg is not sent.
+     *
+     * Default implementation computes the whole track by [computeTrack] and sends it as a
+     * single leg. Override to emit legs one by one.
+     *
+     * @param lv Locus version that is requesting routing.
+     * @param params parameters requested by Locus for a new track.
+     * @param emitter sender of computed legs
+     * @return `true` if all legs were computed and sent
+     */
+    open fun computeTrackLegs(
+        lv: LocusVersion?,
+        params: ComputeTrackParameters,
+        emitter: ComputeTrackLegEmitter,
+    ): Boolean {
+        val track = computeTrack(lv, params)
+            ?: return false
+        return emitter.emitLeg(0, 1, track)
+    }
+
+    //*************************************************
+    // TOOLS
+    //*************************************************
+
+    /**
+     * Get version of Locus that calls the service, `null` if not found (request fails in such
+     * case). Has to be called on the binder thread.
+     *
+     * Version received by [IComputeTrackService.setLocusVersion] is used, so no lookup is
+     * needed. Older Locus versions without the handshake are identified by the calling UID once
+     * per binding; only calls from other apps fall back to [LocusUtils.getActiveVersion].
+     */
+    private fun getLocusVersion(): LocusVersion? {
+        val uid = Binder.getCallingUid()
+        boundVersions[uid]?.let {
+            return it
+        }
+
+        // identify the caller
+        val caller = packageManager.getPackagesForUid(uid)
+            ?.firstNotNullOfOrNull { LocusUtils.createLocusVersion(this, it) }
+        if (caller != null) {
+            boundVersions[uid] = caller
+            return caller
+        }
+
+        // caller is not Locus, use the active version
+        val lv = LocusUtils.getActiveVersion(this)
+        if (lv == null) {
+            logW(tag = TAG) { "Problem with finding running Locus instance" }
+            BinderMetrics.reportFailure()
+        }
+        return lv
+    }
+
+    /**
+     * Compute track progressively and report the result over [emitter].
+     */
+    private fun computeLegs(
+        lv: LocusVersion?,
+        params: ComputeTrackParameters,
+        emitter: ComputeTrackLegEmitter,
+    ) {
+        val success = try {
+            // serve the route from the cache
+            val cache = trackCache
+            val key = cache?.let { getTrackCacheKey(params) }
+            val route = key?.let { cache.get(it) }
+            if (route != null) {
+                route.legs.withIndex().all { (index, leg) ->
+                    emitter.emitLegData(index, route.legs.size, leg)
+                }
+            } else {
+                // compute route and store its legs
+                if (key != null) {
+                    emitter.recordedLegs = ArrayList()
+                }
+                val computed = lv != null && computeTrackLegs(lv, params, emitter)
+                val legs = emitter.recordedLegs
+                if (computed && key != null && !legs.isNullOrEmpty() && !emitter.isCancelled) {
+                    cache.put(key, legs)
+                }
+                computed
+            }
+        } catch (e: Exception) {
+            logE(tag = TAG, ex = e) { "computeLegs(${emitter.requestId})" }
+            false
+        }
+        emitter.finish(success)
+    }
+
+    /**
+     * Get scheduler of route requests, created on the first request.
+     */
+    private fun getScheduler(): ComputeTrackScheduler {
+        synchronized(this) {
+            var scheduler = scheduler
+            if (scheduler == null) {
+                scheduler = ComputeTrackScheduler(computePolicy, computeTimeoutMs)
+                this.scheduler = scheduler
+            }
+            return scheduler
+        }
+    }
+
     companion object {
 
         // tag for logger
         private val TAG = ComputeTrackService::class.java.simpleName
+
+        // names of IComputeTrackService methods in order of declaration, for BinderMetrics
+        private val BINDER_METHODS = arrayOf(
+            "getAttribution", "getTrackTypes", "getIntentForSettings", "computeTrack",
+            "getNumOfTransitPoints", "computeTrackLegs", "cancelComputeTrack",
+            "setLocusVersion"
+        )
     }
 }
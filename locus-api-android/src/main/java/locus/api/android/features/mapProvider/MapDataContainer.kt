@@ -29,6 +29,14 @@ class MapDataContainer : Parcelable {
     var tileResponse: MapTileResponse? = null
         private set
 
+    // container with batch of requests for map tiles
+    var tileRequests: List<MapTileRequest>? = null
+        private set
+
+    // container with batch of responses, in order of requests
+    var tileResponses: List<MapTileResponse>? = null
+        private set
+
     constructor(mapConfigs: List<MapConfigLayer>) {
         this.mDataType = DATA_TYPE_CONFIGURATION
         this.mapConfigurations = mapConfigs
@@ -44,6 +52,10 @@ class MapDataContainer : Parcelable {
         this.tileResponse = tileResponse
     }
 
+    private constructor(dataType: Int) {
+        this.mDataType = dataType
+    }
+
     /**
      * Check if container contains valid data.
      *
@@ -62,6 +74,8 @@ class MapDataContainer : Parcelable {
             DATA_TYPE_CONFIGURATION -> mapConfigurations != null && mapConfigurations!!.isNotEmpty()
             DATA_TYPE_TILE_REQUEST -> tileRequest != null
             DATA_TYPE_TILE_RESPONSE -> tileResponse != null
+            DATA_TYPE_TILE_REQUESTS -> tileRequests != null && tileRequests!!.isNotEmpty()
+            DATA_TYPE_TILE_RESPONSES -> tileResponses != null
             else -> false
         }
     }
@@ -102,6 +116,16 @@ class MapDataContainer : Parcelable {
                 tileResponse = MapTileResponse()
                 tileResponse!!.read(data)
             }
+            DATA_TYPE_TILE_REQUESTS -> {
+                val data = ByteArray(`in`.readInt())
+                `in`.readByteArray(data)
+                tileRequests = Storable.readList(MapTileRequest::class.java, data)
+            }
+            DATA_TYPE_TILE_RESPONSES -> {
+                val data = ByteArray(`in`.readInt())
+                `in`.readByteArray(data)
+                tileResponses = Storable.readList(MapTileResponse::class.java, data)
+            }
         }
     }
 
@@ -114,6 +138,8 @@ class MapDataContainer : Parcelable {
             DATA_TYPE_CONFIGURATION -> writeObject(dest, Storable.getAsBytes(mapConfigurations!!)!!)
             DATA_TYPE_TILE_REQUEST -> writeObject(dest, tileRequest!!.asBytes!!)
             DATA_TYPE_TILE_RESPONSE -> writeObject(dest, tileResponse!!.asBytes!!)
+            DATA_TYPE_TILE_REQUESTS -> writeObject(dest, Storable.getAsBytes(tileRequests!!)!!)
+            DATA_TYPE_TILE_RESPONSES -> writeObject(dest, Storable.getAsBytes(tileResponses!!)!!)
         }
     }
 
@@ -150,6 +176,40 @@ class MapDataContainer : Parcelable {
         */
         const val DATA_TYPE_TILE_RESPONSE = 3
 
+        /*
+        * Batch of requests for multiple tiles
+        */
+        const val DATA_TYPE_TILE_REQUESTS = 4
+
+        /*
+        * Batch of responses, in order of requests
+        */
+        const val DATA_TYPE_TILE_RESPONSES = 5
+
+        /**
+         * Create container with batch of requests for map tiles.
+         *
+         * @param tileRequests requests for tiles
+         */
+        @JvmStatic
+        fun createTileRequests(tileRequests: List<MapTileRequest>): MapDataContainer {
+            return MapDataContainer(DATA_TYPE_TILE_REQUESTS).apply {
+                this.tileRequests = tileRequests
+            }
+        }
+
+        /**
+         * Create container with batch of responses for map tiles.
+         *
+         * @param tileResponses responses in order of requests
+         */
+        @JvmStatic
+        fun createTileResponses(tileResponses: List<MapTileResponse>): MapDataContainer {
+            return MapDataContainer(DATA_TYPE_TILE_RESPONSES).apply {
+                this.tileResponses = tileResponses
+            }
+        }
+
         @JvmField
         val CREATOR: Parcelable.Creator<MapDataContainer> =
             object : Parcelable.Creator<MapDataContainer> {
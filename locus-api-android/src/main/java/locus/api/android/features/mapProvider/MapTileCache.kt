@@ -0,0 +1,224 @@
+package locus.api.android.features.mapProvider
+
+import android.util.LruCache
+import com.asamm.loggerV2.logE
+import locus.api.android.features.mapProvider.data.MapTileResponse
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Cache of map tiles for [MapTileService] providers.
+ *
+ * Tiles are kept encoded (as received in [MapTileResponse.imageData]) in memory LRU cache
+ * limited by the size of data in bytes. Optional [DiskTier] keeps tiles also over the restart
+ * of the provider. Concurrent requests for the same tile are coalesced, so the tile is loaded
+ * only once.
+ *
+ * Only valid responses with image data are cached.
+ */
+class MapTileCache @JvmOverloads constructor(
+    maxMemoryBytes: Int,
+    private val diskTier: DiskTier? = null
+) {
+
+    /**
+     * Key of the cached tile.
+     *
+     * @param layer identification of the map layer (see [MapTileService.getTileCacheKey])
+     */
+    data class Key(
+        val layer: String,
+        val tileX: Int,
+        val tileY: Int,
+        val tileZoom: Int
+    )
+
+    /**
+     * Encoded tile data.
+     *
+     * @param data encoded image
+     * @param format format of the image, one of `MapTileResponse.FORMAT_*` constants
+     */
+    class Tile(val data: ByteArray, val format: Int)
+
+    /**
+     * Persistent tier of the cache.
+     */
+    interface DiskTier {
+
+        /**
+         * Get stored tile.
+         *
+         * @return tile or `null` if tile is not stored
+         */
+        fun get(key: Key): Tile?
+
+        /**
+         * Store tile.
+         */
+        fun put(key: Key, tile: Tile)
+
+        /**
+         * Remove all stored tiles.
+         */
+        fun clear()
+    }
+
+    /**
+     * Snapshot of the cache metrics.
+     */
+    class Stats(
+        // number of tiles served from memory
+        val memoryHits: Long,
+        // number of tiles served from disk tier
+        val diskHits: Long,
+        // number of tiles that had to be loaded
+        val misses: Long,
+        // number of requests that waited for the same tile already being loaded
+        val coalesced: Long,
+        // number of tiles evicted from memory
+        val evictions: Long,
+        // current size of data in memory in bytes
+        val memorySize: Int
+    ) {
+
+        override fun toString(): String {
+            return "Stats [memoryHits:$memoryHits, diskHits:$diskHits, misses:$misses, " +
+                    "coalesced:$coalesced, evictions:$evictions, memorySize:$memorySize]"
+        }
+    }
+
+    // memory cache
+    private val memory = object : LruCache<Key, Tile>(maxMemoryBytes) {
+
+        override fun sizeOf(key: Key, value: Tile): Int {
+            return value.data.size
+        }
+    }
+
+    // tiles currently being loaded
+    private val loading = ConcurrentHashMap<Key, FutureTask<MapTileResponse?>>()
+
+    // metrics
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val misses = AtomicLong()
+    private val coalesced = AtomicLong()
+
+    /**
+     * Current cache metrics.
+     */
+    val stats: Stats
+        get() = Stats(
+            memoryHits.get(), diskHits.get(), misses.get(),
+            coalesced.get(), memory.evictionCount().toLong(), memory.size()
+        )
+
+    /**
+     * Get cached tile.
+     *
+     * @param key key of the tile
+     * @return new response with cached tile or `null` if tile is not cached
+     */
+    fun get(key: Key): MapTileResponse? {
+        // check memory
+        var tile = memory.get(key)
+        if (tile != null) {
+            memoryHits.incrementAndGet()
+            return createResponse(tile)
+        }
+
+        // check disk
+        tile = diskTier?.get(key)
+        if (tile != null) {
+            diskHits.incrementAndGet()
+            memory.put(key, tile)
+            return createResponse(tile)
+        }
+        return null
+    }
+
+    /**
+     * Store tile in the cache. Response without valid image data is ignored.
+     *
+     * @param key key of the tile
+     * @param response loaded tile
+     */
+    fun put(key: Key, response: MapTileResponse) {
+        if (response.resultCode != MapTileResponse.CODE_VALID) {
+            return
+        }
+        response.encodeImage()
+        val data = response.imageData
+        if (data == null || data.isEmpty()) {
+            return
+        }
+        val tile = Tile(data, response.imageFormat)
+        memory.put(key, tile)
+        diskTier?.put(key, tile)
+    }
+
+    /**
+     * Get cached tile or load it. In case, the same tile is already being loaded by another
+     * thread, call waits for its result instead of loading it again.
+     *
+     * @param key key of the tile
+     * @param loader loader of the tile
+     * @return cached or loaded tile
+     */
+    fun getOrLoad(key: Key, loader: () -> MapTileResponse?): MapTileResponse? {
+        get(key)?.let {
+            return it
+        }
+
+        // load tile or wait for already running task. Loaded tile is stored in the cache before
+        // the task is removed from running tasks, and the cache is checked again once the task
+        // is registered, so a tile finished meanwhile by another thread is not loaded again
+        val task = FutureTask<MapTileResponse?> {
+            get(key) ?: run {
+                misses.incrementAndGet()
+                loader()?.also { put(key, it) }
+            }
+        }
+        val running = loading.putIfAbsent(key, task)
+        return try {
+            if (running != null) {
+                coalesced.incrementAndGet()
+                running.get()
+            } else {
+                task.run()
+                task.get()
+            }
+        } catch (e: ExecutionException) {
+            logE(tag = TAG, ex = e) { "getOrLoad($key), problem with loading of tile" }
+            null
+        } finally {
+            if (running == null) {
+                loading.remove(key, task)
+            }
+        }
+    }
+
+    /**
+     * Remove all cached tiles from memory and disk tier.
+     */
+    fun clear() {
+        memory.evictAll()
+        diskTier?.clear()
+    }
+
+    private fun createResponse(tile: Tile): MapTileResponse {
+        return MapTileResponse().apply {
+            resultCode = MapTileResponse.CODE_VALID
+            setImageData(tile.data, tile.format)
+        }
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "MapTileCache"
+    }
+}
@@ -0,0 +1,186 @@
+package locus.api.android.features.mapProvider
+
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+
+/**
+ * Disk tier of [MapTileCache] that stores tiles in a single append-only pack file.
+ *
+ * Index of stored tiles is kept in memory and is rebuilt from the file when opened. New version
+ * of an already stored tile is appended and the older one is ignored. Once the file exceeds
+ * [maxBytes], all stored tiles are dropped and the file starts again from the beginning.
+ *
+ * @param file pack file
+ * @param maxBytes maximal size of the pack file
+ */
+class MapTilePackFile(
+    private val file: File,
+    private val maxBytes: Long
+) : MapTileCache.DiskTier {
+
+    /**
+     * Position of tile data in the file.
+     */
+    private class Entry(val offset: Long, val length: Int, val format: Int)
+
+    // opened file
+    private var raf: RandomAccessFile? = null
+
+    // index of stored tiles
+    private val index = HashMap<MapTileCache.Key, Entry>()
+
+    @Synchronized
+    override fun get(key: MapTileCache.Key): MapTileCache.Tile? {
+        val entry = index[key] ?: return null
+        return try {
+            val raf = open()
+            val data = ByteArray(entry.length)
+            raf.seek(entry.offset)
+            raf.readFully(data)
+            MapTileCache.Tile(data, entry.format)
+        } catch (e: IOException) {
+            logE(tag = TAG, ex = e) { "get($key)" }
+            close()
+            null
+        }
+    }
+
+    @Synchronized
+    override fun put(key: MapTileCache.Key, tile: MapTileCache.Tile) {
+        try {
+            val raf = open()
+            if (raf.length() + tile.data.size > maxBytes) {
+                logW(tag = TAG) { "put($key), pack file is full, dropping stored tiles" }
+                clearFile(raf)
+            }
+
+            // append record
+            val layer = key.layer.toByteArray(Charsets.UTF_8)
+            raf.seek(raf.length())
+            raf.writeInt(layer.size)
+            raf.write(layer)
+            raf.writeInt(key.tileX)
+            raf.writeInt(key.tileY)
+            raf.writeInt(key.tileZoom)
+            raf.writeInt(tile.format)
+            raf.writeInt(tile.data.size)
+            val offset = raf.filePointer
+            raf.write(tile.data)
+            index[key] = Entry(offset, tile.data.size, tile.format)
+        } catch (e: IOException) {
+            logE(tag = TAG, ex = e) { "put($key)" }
+            close()
+        }
+    }
+
+    @Synchronized
+    override fun clear() {
+        try {
+            clearFile(open())
+        } catch (e: IOException) {
+            logE(tag = TAG, ex = e) { "clear()" }
+            close()
+        }
+    }
+
+    /**
+     * Close the pack file. File is opened again on the next request.
+     */
+    @Synchronized
+    fun close() {
+        try {
+            raf?.close()
+        } catch (e: IOException) {
+            logW(tag = TAG) { "close(), problem with closing file: ${e.message}" }
+        }
+        raf = null
+        index.clear()
+    }
+
+    //*************************************************
+    // PRIVATE TOOLS
+    //*************************************************
+
+    /**
+     * Open pack file and rebuild index, if not yet opened.
+     */
+    private fun open(): RandomAccessFile {
+        raf?.let {
+            return it
+        }
+        file.parentFile?.mkdirs()
+        val raf = RandomAccessFile(file, "rw")
+        if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC) {
+            clearFile(raf)
+        } else {
+            readIndex(raf)
+        }
+        this.raf = raf
+        return raf
+    }
+
+    /**
+     * Read index of all stored tiles. Incomplete record at the end of the file (for example
+     * after crash during write) is removed.
+     */
+    private fun readIndex(raf: RandomAccessFile) {
+        index.clear()
+        val length = raf.length()
+        var position = HEADER_SIZE.toLong()
+        try {
+            while (position < length) {
+                raf.seek(position)
+                val layerSize = raf.readInt()
+                if (layerSize < 0 || position + 4 + layerSize + 20 > length) {
+                    break
+                }
+                val layer = ByteArray(layerSize)
+                raf.readFully(layer)
+                val key = MapTileCache.Key(
+                    String(layer, Charsets.UTF_8),
+                    raf.readInt(), raf.readInt(), raf.readInt()
+                )
+                val format = raf.readInt()
+                val dataSize = raf.readInt()
+                val offset = raf.filePointer
+                if (dataSize < 0 || offset + dataSize > length) {
+                    break
+                }
+                index[key] = Entry(offset, dataSize, format)
+                position = offset + dataSize
+            }
+        } catch (e: IOException) {
+            logW(tag = TAG) { "readIndex(), problem with reading index: ${e.message}" }
+        }
+
+        // drop incomplete record
+        if (position < length) {
+            raf.setLength(position)
+        }
+    }
+
+    /**
+     * Remove all records from the file.
+     */
+    private fun clearFile(raf: RandomAccessFile) {
+        index.clear()
+        raf.setLength(0)
+        raf.seek(0)
+        raf.writeInt(MAGIC)
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "MapTilePackFile"
+
+        // identification of the pack file
+        private const val MAGIC = 0x4C4D5450
+
+        // size of the file header
+        private const val HEADER_SIZE = 4
+    }
+}
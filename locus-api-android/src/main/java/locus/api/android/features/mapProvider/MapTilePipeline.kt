@@ -0,0 +1,142 @@
+package locus.api.android.features.mapProvider
+
+import android.os.IBinder
+import android.os.RemoteException
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import locus.api.android.features.mapProvider.data.MapTileRequest
+import locus.api.android.features.mapProvider.data.MapTileResponse
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Asynchronous loading of tiles for [MapTileService].
+ *
+ * Requested tiles wait in the priority queue (newer viewport first, then by priority of tile in
+ * the viewport) and are loaded on the pool of worker threads. Once a client requests tiles for
+ * a newer viewport, tiles of older viewports not yet loaded are cancelled.
+ *
+ * @param threads number of worker threads
+ * @param loader loader of a single tile
+ */
+internal class MapTilePipeline(
+    threads: Int,
+    private val loader: (MapTileRequest) -> MapTileResponse?
+) {
+
+    /**
+     * Task that loads a single tile and reports it to the client.
+     */
+    private inner class TileTask(
+        val client: IBinder,
+        val callback: IMapTileCallback,
+        val request: MapTileRequest
+    ) : FutureTask<MapTileResponse?>(Callable { loader(request) }), Comparable<TileTask> {
+
+        override fun compareTo(other: TileTask): Int {
+            // newer viewport first
+            val viewport = other.request.viewportId.compareTo(request.viewportId)
+            if (viewport != 0) {
+                return viewport
+            }
+            return request.priority.compareTo(other.request.priority)
+        }
+
+        override fun done() {
+            synchronized(tasks) {
+                tasks[client]?.remove(this)
+            }
+            if (isCancelled) {
+                return
+            }
+
+            // report result
+            val response = try {
+                get()
+            } catch (e: ExecutionException) {
+                logE(tag = TAG, ex = e) { "done(), problem with loading of tile" }
+                null
+            } ?: MapTileResponse().apply {
+                resultCode = MapTileResponse.CODE_INTERNAL_ERROR
+            }
+            try {
+                callback.onMapTileLoaded(request.requestId, MapDataContainer(response))
+            } catch (e: RemoteException) {
+                logW(tag = TAG) { "done(), client is not available, cancelling its tiles" }
+                cancel(client)
+            }
+        }
+    }
+
+    // executor with queue ordered by priority of tiles
+    private val executor = ThreadPoolExecutor(
+        threads, threads,
+        30L, TimeUnit.SECONDS,
+        PriorityBlockingQueue()
+    ).apply { allowCoreThreadTimeOut(true) }
+
+    // running and waiting tasks by clients
+    private val tasks = HashMap<IBinder, MutableSet<TileTask>>()
+
+    /**
+     * Request loading of tiles. Not yet loaded tiles of the same client requested for older
+     * viewports are cancelled.
+     *
+     * @param requests requested tiles
+     * @param callback callback of the client
+     */
+    fun request(requests: List<MapTileRequest>, callback: IMapTileCallback) {
+        val client = callback.asBinder()
+        val viewportId = requests.maxOf { it.viewportId }
+        val newTasks = requests.map { TileTask(client, callback, it) }
+        val obsolete: List<TileTask>
+        synchronized(tasks) {
+            val clientTasks = tasks.getOrPut(client) { HashSet() }
+            obsolete = clientTasks.filter { it.request.viewportId < viewportId }
+            clientTasks.removeAll(obsolete.toSet())
+            clientTasks.addAll(newTasks)
+        }
+        cancelTasks(obsolete)
+        newTasks.forEach { executor.execute(it) }
+    }
+
+    /**
+     * Cancel all not yet loaded tiles of the client.
+     *
+     * @param client binder of the client callback
+     */
+    fun cancel(client: IBinder) {
+        val obsolete = synchronized(tasks) {
+            tasks.remove(client)?.toList()
+        } ?: return
+        cancelTasks(obsolete)
+    }
+
+    /**
+     * Cancel all tasks and stop worker threads.
+     */
+    fun shutdown() {
+        synchronized(tasks) {
+            tasks.clear()
+        }
+        executor.shutdownNow()
+    }
+
+    private fun cancelTasks(obsolete: List<TileTask>) {
+        if (obsolete.isEmpty()) {
+            return
+        }
+        obsolete.forEach { it.cancel(true) }
+        executor.purge()
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "MapTilePipeline"
+    }
+}
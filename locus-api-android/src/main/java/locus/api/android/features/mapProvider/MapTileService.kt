@@ -3,22 +3,49 @@ package locus.api.android.features.mapProvider
 import android.app.Service
 import android.content.Intent
 import android.os.IBinder
+import android.os.Parcel
+import com.asamm.loggerV2.logE
 import com.asamm.loggerV2.logW
 import locus.api.android.features.mapProvider.data.MapConfigLayer
 import locus.api.android.features.mapProvider.data.MapTileRequest
 import locus.api.android.features.mapProvider.data.MapTileResponse
+import locus.api.android.utils.metrics.BinderMetrics
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 
 /**
  * IN PREPARATION - NOT YET FULLY WORKING!!
  */
 abstract class MapTileService : Service() {
 
+    // executor for loading of tiles in batch
+    private var tileExecutor: ExecutorService? = null
+
+    // pipeline for asynchronous loading of tiles
+    private var tilePipeline: MapTilePipeline? = null
+
+    // names of layers by zoom levels, used for keys of cached tiles
+    private val cacheLayers by lazy {
+        mapConfigs?.associate { it.zoom to it.name } ?: emptyMap()
+    }
+
     private val mBinder = object : IMapTileService.Stub() {
 
+        override fun onTransact(code: Int, data: Parcel, reply: Parcel?, flags: Int): Boolean {
+            return BinderMetrics.measure(TAG, BINDER_METHODS, code, data, reply) {
+                super.onTransact(code, data, reply, flags)
+            }
+        }
+
         override fun getMapConfigs(): MapDataContainer {
             val configs = this@MapTileService.mapConfigs
             return if (configs == null || configs.isEmpty()) {
                 logW { "getMapConfigs(), invalid configs" }
+                BinderMetrics.reportFailure()
                 MapDataContainer(ArrayList())
             } else {
                 MapDataContainer(configs)
@@ -32,15 +59,17 @@ abstract class MapTileService : Service() {
                 )
             ) {
                 logW { "getMapTile($request), invalid request" }
+                BinderMetrics.reportFailure()
                 val resp = MapTileResponse()
                 resp.resultCode = MapTileResponse.CODE_INVALID_REQUEST
                 return MapDataContainer(resp)
             }
 
             // handle request
-            val response = this@MapTileService.getMapTile(request.tileRequest!!)
+            val response = getMapTileCached(request.tileRequest!!)
             return if (response == null) {
                 logW { "getMapTile($request), invalid response" }
+                BinderMetrics.reportFailure()
                 val resp = MapTileResponse()
                 resp.resultCode = MapTileResponse.CODE_INTERNAL_ERROR
                 MapDataContainer(resp)
@@ -48,15 +77,214 @@ abstract class MapTileService : Service() {
                 MapDataContainer(response)
             }
         }
+
+        override fun getMapTiles(requests: MapDataContainer?): MapDataContainer {
+            // check request
+            if (requests == null || !requests.isValid(
+                    MapDataContainer.DATA_TYPE_TILE_REQUESTS
+                )
+            ) {
+                logW { "getMapTiles($requests), invalid request" }
+                BinderMetrics.reportFailure()
+                return MapDataContainer.createTileResponses(ArrayList())
+            }
+
+            // handle requests in chunks, until transaction is full
+            val tiles = requests.tileRequests!!
+            val chunkSize = tileThreads.coerceAtLeast(1)
+            val responses = ArrayList<MapTileResponse>(tiles.size)
+            var dataSize = 0
+            var full = false
+            while (responses.size < tiles.size && !full) {
+                val index = responses.size
+                val chunk = tiles.subList(index, minOf(index + chunkSize, tiles.size))
+                val results = this@MapTileService.getMapTiles(chunk)
+                for (i in chunk.indices) {
+                    val resp = results.getOrNull(i)?.apply { encodeImage() }
+                        ?: MapTileResponse().apply {
+                            resultCode = MapTileResponse.CODE_INTERNAL_ERROR
+                        }
+                    val respSize = resp.imageData?.size ?: 0
+                    if (responses.isNotEmpty() && dataSize + respSize > MAX_BATCH_DATA_SIZE) {
+                        full = true
+                        break
+                    }
+                    responses.add(resp)
+                    dataSize += respSize
+                }
+            }
+
+            // rest of tiles have to be requested again
+            while (responses.size < tiles.size) {
+                responses.add(MapTileResponse().apply {
+                    resultCode = MapTileResponse.CODE_DEFERRED
+                })
+            }
+            return MapDataContainer.createTileResponses(responses)
+        }
+
+        override fun requestMapTiles(requests: MapDataContainer?, callback: IMapTileCallback?) {
+            // check request
+            if (callback == null || requests == null || !requests.isValid(
+                    MapDataContainer.DATA_TYPE_TILE_REQUESTS
+                )
+            ) {
+                logW { "requestMapTiles($requests, $callback), invalid request" }
+                BinderMetrics.reportFailure()
+                return
+            }
+
+            // add tiles to the queue
+            getTilePipeline().request(requests.tileRequests!!, callback)
+        }
+
+        override fun cancelMapTiles(callback: IMapTileCallback?) {
+            if (callback == null) {
+                return
+            }
+            synchronized(this@MapTileService) {
+                tilePipeline
+            }?.cancel(callback.asBinder())
+        }
     }
 
     // ABSTRACT PART
 
     abstract val mapConfigs: List<MapConfigLayer>?
 
+    /**
+     * Number of threads used to load tiles of a single batch in parallel and number of
+     * workers that load tiles requested asynchronously.
+     */
+    open val tileThreads: Int
+        get() = Runtime.getRuntime().availableProcessors().coerceIn(1, 4)
+
+    /**
+     * Optional cache of tiles. Once defined, tiles are served from the cache and
+     * [getMapTile] is called only for tiles not yet cached.
+     */
+    open val tileCache: MapTileCache?
+        get() = null
+
     override fun onBind(intent: Intent): IBinder? {
         return mBinder
     }
 
+    override fun onDestroy() {
+        super.onDestroy()
+        synchronized(this) {
+            tileExecutor?.shutdownNow()
+            tileExecutor = null
+            tilePipeline?.shutdown()
+            tilePipeline = null
+        }
+    }
+
     abstract fun getMapTile(request: MapTileRequest): MapTileResponse?
+
+    /**
+     * Load batch of tiles. Single batch requested by Locus may be split into more calls
+     * to keep size of the transaction limited.
+     *
+     * Default implementation loads tiles from [tileCache] or over [getMapTile] on the pool of
+     * [tileThreads] threads. Override in case, provider is able to load more tiles at once more
+     * effectively (single database query, single network request, ...).
+     *
+     * @param requests requests for tiles
+     * @return responses in order of requests, `null` items are considered as internal error
+     */
+    open fun getMapTiles(requests: List<MapTileRequest>): List<MapTileResponse?> {
+        if (requests.size == 1) {
+            return listOf(getMapTileCached(requests[0]))
+        }
+
+        // load tiles in parallel
+        val tasks = requests.map { Callable { getMapTileCached(it) } }
+        return getTileExecutor().invokeAll(tasks).map {
+            try {
+                it.get()
+            } catch (e: ExecutionException) {
+                logE(tag = TAG, ex = e) { "getMapTiles(), problem with loading of tile" }
+                null
+            }
+        }
+    }
+
+    /**
+     * Load tile from the [tileCache] or over [getMapTile], if tile is not cached.
+     *
+     * @param request request for a tile
+     * @return loaded tile
+     */
+    private fun getMapTileCached(request: MapTileRequest): MapTileResponse? {
+        val cache = tileCache
+            ?: return getMapTile(request)
+        return cache.getOrLoad(getTileCacheKey(request)) {
+            getMapTile(request)
+        }
+    }
+
+    /**
+     * Get key of the tile in [tileCache]. By default, tile is identified by the name of
+     * the layer from [mapConfigs] with the same zoom level.
+     *
+     * @param request request for a tile
+     * @return key of the tile
+     */
+    open fun getTileCacheKey(request: MapTileRequest): MapTileCache.Key {
+        return MapTileCache.Key(
+            cacheLayers[request.tileZoom] ?: "",
+            request.tileX, request.tileY, request.tileZoom
+        )
+    }
+
+    /**
+     * Get executor for loading of tiles, created on the first request.
+     */
+    private fun getTileExecutor(): ExecutorService {
+        synchronized(this) {
+            var executor = tileExecutor
+            if (executor == null) {
+                val threads = tileThreads.coerceAtLeast(1)
+                executor = ThreadPoolExecutor(
+                    threads, threads,
+                    30L, TimeUnit.SECONDS,
+                    LinkedBlockingQueue()
+                ).apply { allowCoreThreadTimeOut(true) }
+                tileExecutor = executor
+            }
+            return executor
+        }
+    }
+
+    /**
+     * Get pipeline for asynchronous loading of tiles, created on the first request.
+     */
+    private fun getTilePipeline(): MapTilePipeline {
+        synchronized(this) {
+            var pipeline = tilePipeline
+            if (pipeline == null) {
+                pipeline = MapTilePipeline(tileThreads.coerceAtLeast(1)) {
+                    getMapTileCached(it)
+                }
+                tilePipeline = pipeline
+            }
+            return pipeline
+        }
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "MapTileService"
+
+        // names of IMapTileService methods in order of declaration, for BinderMetrics
+        private val BINDER_METHODS = arrayOf(
+            "getMapConfigs", "getMapTile", "getMapTiles", "requestMapTiles", "cancelMapTiles"
+        )
+
+        // maximal size of tiles data in single batch, binder buffer is limited to 1 MB
+        // for all running transactions of the process
+        private const val MAX_BATCH_DATA_SIZE = 256 * 1024
+    }
 }
@@ -36,12 +36,27 @@ class MapTileRequest : Storable() {
      */
     var mapSystemY2: Double = 0.0
 
+    /*
+     * ID of the request assigned by Locus, used to match asynchronously loaded tiles
+     */
+    var requestId: Int = 0
+    /*
+     * ID of the map viewport, the tile was requested for. Newer viewport has higher ID
+     * and replaces tiles not yet loaded for older viewports.
+     */
+    var viewportId: Int = 0
+    /*
+     * Priority of the tile in the viewport, lower value is loaded sooner (for example,
+     * distance of the tile from the center of the viewport)
+     */
+    var priority: Int = 0
+
     //*************************************************
     // STORABLE
     //*************************************************
 
     override fun getVersion(): Int {
-        return 0
+        return 1
     }
 
     override fun readObject(version: Int, dr: DataReaderBigEndian) {
@@ -53,6 +68,13 @@ class MapTileRequest : Storable() {
         mapSystemY1 = dr.readDouble()
         mapSystemX2 = dr.readDouble()
         mapSystemY2 = dr.readDouble()
+
+        // V1
+        if (version >= 1) {
+            requestId = dr.readInt()
+            viewportId = dr.readInt()
+            priority = dr.readInt()
+        }
     }
 
     override fun writeObject(dw: DataWriterBigEndian) {
@@ -64,5 +86,10 @@ class MapTileRequest : Storable() {
         dw.writeDouble(mapSystemY1)
         dw.writeDouble(mapSystemX2)
         dw.writeDouble(mapSystemY2)
+
+        // V1
+        dw.writeInt(requestId)
+        dw.writeInt(viewportId)
+        dw.writeInt(priority)
     }
 }
\ No newline at end of file
@@ -13,17 +13,82 @@ class MapTileResponse : Storable() {
      * Result code that indicate result of whole operation
      */
     var resultCode: Int = CODE_UNKNOWN
+
+    /*
+     * Encoded image data (JPEG, PNG, WebP). Data are transferred as they are, without
+     * any re-encoding.
+     */
+    var imageData: ByteArray? = null
+        private set
+
+    /*
+     * Format of encoded image data, one of FORMAT_* constants
+     */
+    var imageFormat: Int = FORMAT_UNKNOWN
+        private set
+
+    // decoded image
+    private var imageDecoded: Bitmap? = null
+
     /*
-     * Image itself
+     * Image itself. Encoded data are decoded on the first request.
+     *
+     * Setting a bitmap is supported for compatibility only, bitmap has to be encoded to PNG
+     * before sending. Use [setImageData] if tile data are already encoded.
      */
-    var image: Bitmap? = null
+    var image: Bitmap?
+        get() {
+            if (imageDecoded == null) {
+                imageData?.let {
+                    imageDecoded = UtilsBitmap.getBitmap(it)
+                }
+            }
+            return imageDecoded
+        }
+        set(value) {
+            imageDecoded = value
+            imageData = null
+            imageFormat = FORMAT_UNKNOWN
+        }
+
+    /**
+     * Set already encoded image data. Data are sent to Locus as they are, so use this method
+     * instead of decoding data to [Bitmap] and setting [image].
+     *
+     * @param data encoded image data
+     * @param format format of data or [FORMAT_UNKNOWN] to detect it from the data
+     */
+    @JvmOverloads
+    fun setImageData(data: ByteArray?, format: Int = FORMAT_UNKNOWN) {
+        imageDecoded = null
+        imageData = data
+        imageFormat = if (data == null) {
+            FORMAT_UNKNOWN
+        } else if (format == FORMAT_UNKNOWN) {
+            detectFormat(data)
+        } else {
+            format
+        }
+    }
+
+    /**
+     * Encode image set as [Bitmap] into PNG data, so the result may be measured and sent
+     * without encoding it again.
+     */
+    internal fun encodeImage() {
+        val bitmap = imageDecoded
+        if (imageData == null && bitmap != null) {
+            imageData = UtilsBitmap.getBitmap(bitmap, Bitmap.CompressFormat.PNG)
+            imageFormat = if (imageData != null) FORMAT_PNG else FORMAT_UNKNOWN
+        }
+    }
 
     //*************************************************
     // STORABLE
     //*************************************************
 
     override fun getVersion(): Int {
-        return 0
+        return 1
     }
 
     override fun readObject(version: Int, dr: DataReaderBigEndian) {
@@ -31,29 +96,41 @@ class MapTileResponse : Storable() {
 
         // icon
         val size = dr.readInt()
-        if (size > 0) {
-            val data = dr.readBytes(size)
-            image = UtilsBitmap.getBitmap(data)
+        val data = if (size > 0) {
+            dr.readBytes(size)
         } else {
-            image = null
+            null
         }
+
+        // V1
+        val format = if (version >= 1) {
+            dr.readInt()
+        } else {
+            FORMAT_UNKNOWN
+        }
+        setImageData(data, format)
     }
 
     override fun writeObject(dw: DataWriterBigEndian) {
         dw.writeInt(resultCode)
 
         // icon
-        if (image == null) {
+        var data = imageData
+        var format = imageFormat
+        if (data == null && imageDecoded != null) {
+            data = UtilsBitmap.getBitmap(imageDecoded!!, Bitmap.CompressFormat.PNG)
+            format = FORMAT_PNG
+        }
+        if (data == null || data.isEmpty()) {
             dw.writeInt(0)
+            format = FORMAT_UNKNOWN
         } else {
-            val data = UtilsBitmap.getBitmap(image!!, Bitmap.CompressFormat.PNG)
-            if (data == null || data.isEmpty()) {
-                dw.writeInt(0)
-            } else {
-                dw.writeInt(data.size)
-                dw.write(data)
-            }
+            dw.writeInt(data.size)
+            dw.write(data)
         }
+
+        // V1
+        dw.writeInt(format)
     }
 
     companion object {
@@ -64,5 +141,41 @@ class MapTileResponse : Storable() {
         const val CODE_INVALID_REQUEST = 2
         const val CODE_NOT_EXISTS = 3
         const val CODE_INTERNAL_ERROR = 4
+        // tile was not processed in this batch to keep transaction size limited, request it again
+        const val CODE_DEFERRED = 5
+
+        // FORMATS OF IMAGE DATA
+
+        const val FORMAT_UNKNOWN = 0
+        const val FORMAT_PNG = 1
+        const val FORMAT_JPEG = 2
+        const val FORMAT_WEBP = 3
+
+        /**
+         * Detect format of encoded image from its header.
+         *
+         * @param data encoded image data
+         * @return detected format or [FORMAT_UNKNOWN]
+         */
+        fun detectFormat(data: ByteArray): Int {
+            return when {
+                data.size >= 8
+                        && data[0] == 0x89.toByte() && data[1] == 'P'.code.toByte()
+                        && data[2] == 'N'.code.toByte() && data[3] == 'G'.code.toByte() ->
+                    FORMAT_PNG
+                data.size >= 3
+                        && data[0] == 0xFF.toByte() && data[1] == 0xD8.toByte()
+                        && data[2] == 0xFF.toByte() ->
+                    FORMAT_JPEG
+                data.size >= 12
+                        && data[0] == 'R'.code.toByte() && data[1] == 'I'.code.toByte()
+                        && data[2] == 'F'.code.toByte() && data[3] == 'F'.code.toByte()
+                        && data[8] == 'W'.code.toByte() && data[9] == 'E'.code.toByte()
+                        && data[10] == 'B'.code.toByte() && data[11] == 'P'.code.toByte() ->
+                    FORMAT_WEBP
+                else ->
+                    FORMAT_UNKNOWN
+            }
+        }
     }
 }
@@ -390,23 +390,34 @@ class UpdateContainer : Storable() {
     val isGuideEnabled: Boolean
         get() = guideType != GUIDE_TYPE_DISABLED
 
+    // generated guiding containers, cleared once guidance values are read again
+    private var guidePointCache: UpdateContainerGuidePoint? = null
+    private var guideTrackCache: UpdateContainerGuideTrack? = null
+
     /**
      * Generate container for guiding parameters to single point. In case, this guiding is not
      * active, result of this call is `null`.
      *
+     * Container is generated only once after every read of guidance values. Changes made
+     * directly over `guide*` properties are not reflected in already generated container.
+     *
      * @return guiding container or `null` if this guiding is not enabled
      */
     val contentGuidePoint: UpdateContainerGuidePoint?
         get() = if (guideType != GUIDE_TYPE_WAYPOINT) {
             null
-        } else UpdateContainerGuidePoint(guideType,
+        } else guidePointCache ?: UpdateContainerGuidePoint(guideType,
                 guideTargetId, guideWptName, guideWptLoc!!, guideWptDist,
                 guideWptAzim, guideWptAngle, guideWptTime)
+                .also { guidePointCache = it }
 
     /**
      * Generate container for guiding parameters along the track. In case, this guiding is not
      * active, result of this call is `null`.
      *
+     * Container is generated only once after every read of guidance values. Changes made
+     * directly over `guide*` properties are not reflected in already generated container.
+     *
      * @return guiding container or `null` if this guiding is not enabled
      */
     val contentGuideTrack: UpdateContainerGuideTrack?
@@ -415,6 +426,9 @@ class UpdateContainer : Storable() {
             if (guideType != GUIDE_TYPE_TRACK_GUIDE && guideType != GUIDE_TYPE_TRACK_NAVIGATION) {
                 return null
             }
+            guideTrackCache?.let {
+                return it
+            }
 
             // generate first navigation point
             var navPoint1: UpdateContainerGuideTrack.NavPoint? = null
@@ -447,8 +461,17 @@ class UpdateContainer : Storable() {
                     guideWptAzim, guideWptAngle, guideWptTime,
                     guideValid, guideDistFromStart, guideDistToFinish, guideTimeToFinish,
                     navPoint1, navPoint2, nextVia)
+                    .also { guideTrackCache = it }
         }
 
+    /**
+     * Clear generated guiding containers.
+     */
+    private fun clearGuideCache() {
+        guidePointCache = null
+        guideTrackCache = null
+    }
+
     //*************************************************
     // STORABLE PART
     //*************************************************
@@ -470,7 +493,7 @@ class UpdateContainer : Storable() {
 
         // LOCATION, GPS, BASIC VALUES
 
-        locMyLocation = readLocation(dr) ?: locMyLocation
+        locMyLocation = readLocation(dr, locMyLocation) ?: locMyLocation
         gpsSatsUsed = dr.readInt()
         gpsSatsAll = dr.readInt()
         declination = dr.readFloat()
@@ -487,26 +510,27 @@ class UpdateContainer : Storable() {
 
         isMapVisible = dr.readBoolean()
         mapRotate = dr.readFloat()
-        locMapCenter = readLocation(dr)
-        mapTopLeft = readLocation(dr)
-        mapBottomRight = readLocation(dr)
+        locMapCenter = readLocation(dr, locMapCenter)
+        mapTopLeft = readLocation(dr, mapTopLeft)
+        mapBottomRight = readLocation(dr, mapBottomRight)
         mapZoomLevel = dr.readInt()
 
         // TRACK RECORDING PART
 
         isTrackRecRecording = dr.readBoolean()
         isTrackRecPaused = dr.readBoolean()
-        trackRecProfileName = dr.readString()
-        if (dr.readBoolean()) {
-            trackRecStats = TrackStats()
-            trackRecStats!!.read(dr)
+        trackRecProfileName = dr.readString(trackRecProfileName)
+        trackRecStats = if (dr.readBoolean()) {
+            (trackRecStats ?: TrackStats()).apply { read(dr) }
+        } else {
+            null
         }
 
         // GUIDING PART
 
         guideType = dr.readInt()
-        guideWptName = dr.readString()
-        guideWptLoc = readLocation(dr)
+        guideWptName = dr.readString(guideWptName)
+        guideWptLoc = readLocation(dr, guideWptLoc)
         guideWptDist = dr.readDouble()
         guideWptAzim = dr.readFloat()
         guideWptAngle = dr.readFloat()
@@ -514,13 +538,13 @@ class UpdateContainer : Storable() {
         guideDistFromStart = dr.readDouble()
         guideDistToFinish = dr.readDouble()
         guideTimeToFinish = dr.readLong()
-        guideNavPoint1Name = dr.readString()
-        guideNavPoint1Loc = readLocation(dr)
+        guideNavPoint1Name = dr.readString(guideNavPoint1Name)
+        guideNavPoint1Loc = readLocation(dr, guideNavPoint1Loc)
         guideNavPoint1Dist = dr.readDouble()
         guideNavPoint1Time = dr.readLong()
         guideNavPoint1Action = PointRteAction.getActionById(dr.readInt())
-        guideNavPoint2Name = dr.readString()
-        guideNavPoint2Loc = readLocation(dr)
+        guideNavPoint2Name = dr.readString(guideNavPoint2Name)
+        guideNavPoint2Loc = readLocation(dr, guideNavPoint2Loc)
         guideNavPoint2Dist = dr.readDouble()
         guideNavPoint2Time = dr.readLong()
         guideNavPoint2Action = PointRteAction.getActionById(dr.readInt())
@@ -537,8 +561,8 @@ class UpdateContainer : Storable() {
 
         // V2
         if (version >= 2) {
-            activeDashboardId = dr.readString()
-            activeLiveTrackId = dr.readString()
+            activeDashboardId = dr.readString(activeDashboardId)
+            activeLiveTrackId = dr.readString(activeLiveTrackId)
         }
 
         // V3
@@ -553,16 +577,17 @@ class UpdateContainer : Storable() {
 
         // V5
         if (version >= 5) {
-            guideNavPoint1Extra = dr.readString()
-            guideNavPoint2Extra = dr.readString()
+            guideNavPoint1Extra = dr.readString(guideNavPoint1Extra)
+            guideNavPoint2Extra = dr.readString(guideNavPoint2Extra)
         }
 
         // V6
         if (version >= 6) {
-            guideNextViaName = dr.readString()
+            guideNextViaName = dr.readString(guideNextViaName)
             guideNextViaDist = dr.readDouble()
             guideNextViaTime = dr.readLong()
         }
+        clearGuideCache()
     }
 
     @Throws(IOException::class)
@@ -663,14 +688,161 @@ class UpdateContainer : Storable() {
         dw.writeLong(guideNextViaTime)
     }
 
+    //*************************************************
+    // FIELD GROUPS
+    //*************************************************
+
+    /**
+     * Get content of selected field groups as byte array. See [writeFieldGroups].
+     *
+     * @param fieldGroups bitmask of `FIELD_GROUP_*` constants
+     * @return serialized field groups
+     */
+    fun getFieldGroupsAsBytes(fieldGroups: Int): ByteArray {
+        val dw = DataWriterBigEndian()
+        writeFieldGroups(dw, fieldGroups)
+        return dw.toByteArray()
+    }
+
+    /**
+     * Update content by field groups serialized by [getFieldGroupsAsBytes].
+     *
+     * @param data serialized field groups
+     * @return bitmask of updated field groups
+     */
+    @Throws(IOException::class)
+    fun readFieldGroups(data: ByteArray): Int {
+        return readFieldGroups(DataReaderBigEndian(data))
+    }
+
+    /**
+     * Write only selected groups of fields. Unlike [write], this allows to transfer only
+     * values the consumer is interested in. Every group is prefixed by its size, so groups
+     * unknown to the reader are skipped and new fields may be appended to existing groups.
+     *
+     * @param dw writer
+     * @param fieldGroups bitmask of `FIELD_GROUP_*` constants
+     */
+    @Throws(IOException::class)
+    fun writeFieldGroups(dw: DataWriterBigEndian, fieldGroups: Int) {
+        val groups = fieldGroups and FIELD_GROUP_ALL
+        dw.writeInt(FIELD_GROUPS_VERSION)
+        dw.writeInt(groups)
+        for (i in 0 until Int.SIZE_BITS) {
+            val group = 1 shl i
+            if (groups and group == 0) {
+                continue
+            }
+
+            // write empty size of group and group itself
+            dw.writeInt(0)
+            val startSize = dw.size()
+            writeFieldGroup(dw, group)
+
+            // return back and write size of group
+            val groupSize = dw.size() - startSize
+            dw.storePosition()
+            dw.moveTo(startSize - 4)
+            dw.writeInt(groupSize)
+            dw.restorePosition()
+        }
+    }
+
+    /**
+     * Update content by field groups written by [writeFieldGroups]. Fields of groups that are
+     * not included keep their current values.
+     *
+     * @param dr reader
+     * @return bitmask of updated field groups
+     */
+    @Throws(IOException::class)
+    fun readFieldGroups(dr: DataReaderBigEndian): Int {
+        dr.readInt() // version
+        val groups = dr.readInt()
+        for (i in 0 until Int.SIZE_BITS) {
+            val group = 1 shl i
+            if (groups and group == 0) {
+                continue
+            }
+
+            // read group and skip data unknown to this version
+            val groupSize = dr.readInt()
+            val start = dr.position
+            if (group and FIELD_GROUP_ALL != 0) {
+                readFieldGroup(dr, group)
+            }
+            dr.seek(start + groupSize)
+        }
+        return groups and FIELD_GROUP_ALL
+    }
+
+    /**
+     * Write values of a single field group, without any header.
+     *
+     * @param dw writer
+     * @param group one of `FIELD_GROUP_*` constants
+     */
+    @Throws(IOException::class)
+    private fun writeFieldGroup(dw: DataWriterBigEndian, group: Int) {
+        for (i in FIELDS.indices) {
+            if (FIELDS[i].group == group) {
+                FIELDS[i].write(this, dw)
+            }
+        }
+    }
+
+    /**
+     * Read values of a single field group written by [writeFieldGroup].
+     *
+     * @param dr reader
+     * @param group one of `FIELD_GROUP_*` constants
+     */
+    @Throws(IOException::class)
+    private fun readFieldGroup(dr: DataReaderBigEndian, group: Int) {
+        for (i in FIELDS.indices) {
+            if (FIELDS[i].group == group) {
+                FIELDS[i].read(this, dr)
+            }
+        }
+        if (group == FIELD_GROUP_GUIDANCE) {
+            clearGuideCache()
+        }
+    }
+
+    /**
+     * Write value of a single field.
+     *
+     * @param dw writer
+     * @param index index of the field, see [fieldCount]
+     */
+    @Throws(IOException::class)
+    internal fun writeField(dw: DataWriterBigEndian, index: Int) {
+        FIELDS[index].write(this, dw)
+    }
+
+    /**
+     * Read value of a single field written by [writeField].
+     *
+     * @param dr reader
+     * @param index index of the field, see [fieldCount]
+     */
+    @Throws(IOException::class)
+    internal fun readField(dr: DataReaderBigEndian, index: Int) {
+        FIELDS[index].read(this, dr)
+        if (FIELDS[index].group == FIELD_GROUP_GUIDANCE) {
+            clearGuideCache()
+        }
+    }
+
     /**
      * Read location from reader.
      *
      * @param dr reader
+     * @param into existing location that may be reused
      * @return location or throw exception
      */
     @Throws(IOException::class)
-    private fun readLocation(dr: DataReaderBigEndian): Location? {
+    private fun readLocation(dr: DataReaderBigEndian, into: Location?): Location? {
         // check existence
         val exists = dr.readBoolean()
         if (!exists) {
@@ -679,7 +851,7 @@ class UpdateContainer : Storable() {
 
         // finally read location
         try {
-            return dr.readStorable(Location::class.java)
+            return dr.readStorable(Location::class.java, into)
         } catch (e: InstantiationException) {
             throw IOException(e.message)
         } catch (e: IllegalAccessException) {
@@ -713,5 +885,221 @@ class UpdateContainer : Storable() {
         const val GUIDE_TYPE_WAYPOINT = 1
         const val GUIDE_TYPE_TRACK_GUIDE = 2
         const val GUIDE_TYPE_TRACK_NAVIGATION = 3
+
+        // FIELD GROUPS
+
+        /**
+         * State of the app: [isUserTouching], [isEnabledMyLocation].
+         */
+        const val FIELD_GROUP_STATE = 1 shl 0
+
+        /**
+         * Current location, GPS and orientation values: [locMyLocation], [isGpsLocValid],
+         * `gpsSats*`, [declination], `orient*`, [pace], [speedVertical], [slope].
+         */
+        const val FIELD_GROUP_LOCATION = 1 shl 1
+
+        /**
+         * State of the map: [isMapVisible], [mapRotate], [locMapCenter], [mapTopLeft],
+         * [mapBottomRight], [mapZoomLevel].
+         */
+        const val FIELD_GROUP_MAP = 1 shl 2
+
+        /**
+         * Track recording: `isTrackRec*`, [trackRecProfileName], [trackRecStats].
+         */
+        const val FIELD_GROUP_TRACK_REC = 1 shl 3
+
+        /**
+         * Guidance and navigation: all `guide*` values.
+         */
+        const val FIELD_GROUP_GUIDANCE = 1 shl 4
+
+        /**
+         * Various values: [activeDashboardId], [activeLiveTrackId], `deviceBattery*`.
+         */
+        const val FIELD_GROUP_VARIOUS = 1 shl 5
+
+        /**
+         * All field groups.
+         */
+        const val FIELD_GROUP_ALL = FIELD_GROUP_STATE or FIELD_GROUP_LOCATION or
+                FIELD_GROUP_MAP or FIELD_GROUP_TRACK_REC or FIELD_GROUP_GUIDANCE or
+                FIELD_GROUP_VARIOUS
+
+        // version of the field groups format
+        private const val FIELD_GROUPS_VERSION = 1
+
+        // version of the delta frame format, see UpdateContainerDeltaEncoder
+        internal const val DELTA_VERSION = 1
+
+        /**
+         * Single field of the container, that may be transferred separately.
+         */
+        private class Field(
+            val group: Int,
+            val write: UpdateContainer.(DataWriterBigEndian) -> Unit,
+            val read: UpdateContainer.(DataReaderBigEndian) -> Unit
+        )
+
+        /**
+         * All transferable fields ordered by groups. Index of the field is part of the
+         * serialized data, so new fields have to be added only at the end.
+         */
+        private val FIELDS = arrayOf(
+            // STATE
+            Field(FIELD_GROUP_STATE, { it.writeBoolean(isUserTouching) },
+                { isUserTouching = it.readBoolean() }),
+            Field(FIELD_GROUP_STATE, { it.writeBoolean(isEnabledMyLocation) },
+                { isEnabledMyLocation = it.readBoolean() }),
+
+            // LOCATION
+            Field(FIELD_GROUP_LOCATION, { writeLocation(it, locMyLocation) },
+                { locMyLocation = readLocation(it, locMyLocation) ?: locMyLocation }),
+            Field(FIELD_GROUP_LOCATION, { it.writeBoolean(isGpsLocValid) },
+                { isGpsLocValid = it.readBoolean() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeInt(gpsSatsUsed) },
+                { gpsSatsUsed = it.readInt() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeInt(gpsSatsAll) },
+                { gpsSatsAll = it.readInt() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(declination) },
+                { declination = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(orientHeading) },
+                { orientHeading = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(orientHeadingOpposit) },
+                { orientHeadingOpposit = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(orientCourse) },
+                { orientCourse = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(orientPitch) },
+                { orientPitch = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(orientRoll) },
+                { orientRoll = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(orientGpsAngle) },
+                { orientGpsAngle = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(pace) },
+                { pace = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(speedVertical) },
+                { speedVertical = it.readFloat() }),
+            Field(FIELD_GROUP_LOCATION, { it.writeFloat(slope) },
+                { slope = it.readFloat() }),
+
+            // MAP
+            Field(FIELD_GROUP_MAP, { it.writeBoolean(isMapVisible) },
+                { isMapVisible = it.readBoolean() }),
+            Field(FIELD_GROUP_MAP, { it.writeFloat(mapRotate) },
+                { mapRotate = it.readFloat() }),
+            Field(FIELD_GROUP_MAP, { writeLocation(it, locMapCenter) },
+                { locMapCenter = readLocation(it, locMapCenter) }),
+            Field(FIELD_GROUP_MAP, { writeLocation(it, mapTopLeft) },
+                { mapTopLeft = readLocation(it, mapTopLeft) }),
+            Field(FIELD_GROUP_MAP, { writeLocation(it, mapBottomRight) },
+                { mapBottomRight = readLocation(it, mapBottomRight) }),
+            Field(FIELD_GROUP_MAP, { it.writeInt(mapZoomLevel) },
+                { mapZoomLevel = it.readInt() }),
+
+            // TRACK RECORDING
+            Field(FIELD_GROUP_TRACK_REC, { it.writeBoolean(isTrackRecRecording) },
+                { isTrackRecRecording = it.readBoolean() }),
+            Field(FIELD_GROUP_TRACK_REC, { it.writeBoolean(isTrackRecPaused) },
+                { isTrackRecPaused = it.readBoolean() }),
+            Field(FIELD_GROUP_TRACK_REC, { it.writeString(trackRecProfileName) },
+                { trackRecProfileName = it.readString(trackRecProfileName) }),
+            Field(FIELD_GROUP_TRACK_REC, { dw ->
+                if (trackRecStats != null) {
+                    dw.writeBoolean(true)
+                    dw.writeStorable(trackRecStats!!)
+                } else {
+                    dw.writeBoolean(false)
+                }
+            }, { dr ->
+                trackRecStats = if (dr.readBoolean()) {
+                    (trackRecStats ?: TrackStats()).apply { read(dr) }
+                } else {
+                    null
+                }
+            }),
+
+            // GUIDANCE
+            Field(FIELD_GROUP_GUIDANCE, { it.writeInt(guideType) },
+                { guideType = it.readInt() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeLong(guideTargetId) },
+                { guideTargetId = it.readLong() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeString(guideWptName) },
+                { guideWptName = it.readString(guideWptName) }),
+            Field(FIELD_GROUP_GUIDANCE, { writeLocation(it, guideWptLoc) },
+                { guideWptLoc = readLocation(it, guideWptLoc) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeDouble(guideWptDist) },
+                { guideWptDist = it.readDouble() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeFloat(guideWptAzim) },
+                { guideWptAzim = it.readFloat() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeFloat(guideWptAngle) },
+                { guideWptAngle = it.readFloat() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeLong(guideWptTime) },
+                { guideWptTime = it.readLong() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeBoolean(guideValid) },
+                { guideValid = it.readBoolean() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeDouble(guideDistFromStart) },
+                { guideDistFromStart = it.readDouble() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeDouble(guideDistToFinish) },
+                { guideDistToFinish = it.readDouble() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeLong(guideTimeToFinish) },
+                { guideTimeToFinish = it.readLong() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeString(guideNavPoint1Name) },
+                { guideNavPoint1Name = it.readString(guideNavPoint1Name) }),
+            Field(FIELD_GROUP_GUIDANCE, { writeLocation(it, guideNavPoint1Loc) },
+                { guideNavPoint1Loc = readLocation(it, guideNavPoint1Loc) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeDouble(guideNavPoint1Dist) },
+                { guideNavPoint1Dist = it.readDouble() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeLong(guideNavPoint1Time) },
+                { guideNavPoint1Time = it.readLong() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeInt(guideNavPoint1Action.id) },
+                { guideNavPoint1Action = PointRteAction.getActionById(it.readInt()) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeString(guideNavPoint1Extra) },
+                { guideNavPoint1Extra = it.readString(guideNavPoint1Extra) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeString(guideNavPoint2Name) },
+                { guideNavPoint2Name = it.readString(guideNavPoint2Name) }),
+            Field(FIELD_GROUP_GUIDANCE, { writeLocation(it, guideNavPoint2Loc) },
+                { guideNavPoint2Loc = readLocation(it, guideNavPoint2Loc) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeDouble(guideNavPoint2Dist) },
+                { guideNavPoint2Dist = it.readDouble() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeLong(guideNavPoint2Time) },
+                { guideNavPoint2Time = it.readLong() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeInt(guideNavPoint2Action.id) },
+                { guideNavPoint2Action = PointRteAction.getActionById(it.readInt()) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeString(guideNavPoint2Extra) },
+                { guideNavPoint2Extra = it.readString(guideNavPoint2Extra) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeString(guideNextViaName) },
+                { guideNextViaName = it.readString(guideNextViaName) }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeDouble(guideNextViaDist) },
+                { guideNextViaDist = it.readDouble() }),
+            Field(FIELD_GROUP_GUIDANCE, { it.writeLong(guideNextViaTime) },
+                { guideNextViaTime = it.readLong() }),
+
+            // VARIOUS
+            Field(FIELD_GROUP_VARIOUS, { it.writeString(activeDashboardId) },
+                { activeDashboardId = it.readString(activeDashboardId) }),
+            Field(FIELD_GROUP_VARIOUS, { it.writeString(activeLiveTrackId) },
+                { activeLiveTrackId = it.readString(activeLiveTrackId) }),
+            Field(FIELD_GROUP_VARIOUS, { it.writeInt(deviceBatteryValue) },
+                { deviceBatteryValue = it.readInt() }),
+            Field(FIELD_GROUP_VARIOUS, { it.writeFloat(deviceBatteryTemperature) },
+                { deviceBatteryTemperature = it.readFloat() })
+        )
+
+        /**
+         * Number of fields that may be transferred separately (max. 64).
+         */
+        internal val fieldCount: Int
+            get() = FIELDS.size
+
+        /**
+         * Get field group of the field.
+         *
+         * @param index index of the field
+         * @return one of `FIELD_GROUP_*` constants
+         */
+        internal fun getFieldGroup(index: Int): Int {
+            return FIELDS[index].group
+        }
     }
 }
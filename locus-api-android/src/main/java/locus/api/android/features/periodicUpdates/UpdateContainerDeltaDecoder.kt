@@ -0,0 +1,60 @@
+package locus.api.android.features.periodicUpdates
+
+import locus.api.utils.DataReaderBigEndian
+import java.io.IOException
+
+/**
+ * Decoder of the delta [UpdateContainer] stream written by [UpdateContainerDeltaEncoder].
+ *
+ * Frames are applied onto a single [container] instance, that is updated in place.
+ *
+ * **Thread Safety:**  This class is not thread-safe!
+ *
+ * @param container container updated by received frames
+ */
+class UpdateContainerDeltaDecoder @JvmOverloads constructor(
+    val container: UpdateContainer = UpdateContainer()
+) {
+
+    // expected sequence number of the next frame, -1 if keyframe is required
+    private var expectedSequence = -1
+
+    /**
+     * Apply received frame onto the [container].
+     *
+     * @param data encoded frame
+     * @return bitmask of updated field groups or [KEYFRAME_REQUIRED] in case, frame cannot be
+     * applied, because some previous frame is missing
+     */
+    @Throws(IOException::class)
+    fun apply(data: ByteArray): Int {
+        val dr = DataReaderBigEndian(data)
+        dr.readInt() // version
+        val keyframe = dr.readBoolean()
+        val sequence = dr.readInt()
+        if (!keyframe && sequence != expectedSequence) {
+            expectedSequence = -1
+            return KEYFRAME_REQUIRED
+        }
+
+        // read changed fields. Fields unknown to this version are always at the end
+        val changed = dr.readLong()
+        var groups = 0
+        for (i in 0 until UpdateContainer.fieldCount) {
+            if (changed and (1L shl i) != 0L) {
+                container.readField(dr, i)
+                groups = groups or UpdateContainer.getFieldGroup(i)
+            }
+        }
+        expectedSequence = sequence + 1
+        return groups
+    }
+
+    companion object {
+
+        /**
+         * Frame cannot be applied, consumer should request a keyframe.
+         */
+        const val KEYFRAME_REQUIRED = -1
+    }
+}
@@ -0,0 +1,115 @@
+package locus.api.android.features.periodicUpdates
+
+import locus.api.utils.DataWriterBigEndian
+import java.io.IOException
+
+/**
+ * Encoder of the delta [UpdateContainer] stream, used by the producer for a single consumer.
+ *
+ * First frame and then every [keyframeInterval] frame is a keyframe with all values of
+ * subscribed field groups. Other frames contain only a bitmask of fields changed since
+ * the previous frame and their new values.
+ *
+ * **Thread Safety:**  This class is not thread-safe!
+ *
+ * @param fieldGroups bitmask of subscribed field groups (`UpdateContainer.FIELD_GROUP_*`)
+ * @param keyframeInterval number of frames between two keyframes
+ */
+class UpdateContainerDeltaEncoder @JvmOverloads constructor(
+    fieldGroups: Int,
+    private val keyframeInterval: Int = DEFAULT_KEYFRAME_INTERVAL
+) {
+
+    // bitmask of subscribed fields
+    private val fields: Long
+
+    // last sent values of fields
+    private val lastValues = arrayOfNulls<ByteArray>(UpdateContainer.fieldCount)
+
+    // writer for values of single fields
+    private val fieldWriter = DataWriterBigEndian(64)
+
+    // sequence number of the next frame
+    private var sequence = 0
+
+    // number of frames since the last keyframe
+    private var framesFromKeyframe = 0
+
+    // flag if next frame has to be a keyframe
+    private var keyframeRequested = true
+
+    init {
+        var mask = 0L
+        for (i in 0 until UpdateContainer.fieldCount) {
+            if (fieldGroups and UpdateContainer.getFieldGroup(i) != 0) {
+                mask = mask or (1L shl i)
+            }
+        }
+        fields = mask
+    }
+
+    /**
+     * Force keyframe as the next frame, for example when consumer missed some frame.
+     */
+    fun requestKeyframe() {
+        keyframeRequested = true
+    }
+
+    /**
+     * Encode next frame.
+     *
+     * @param uc container with current values
+     * @return encoded frame or `null` if no subscribed value changed since the previous frame
+     */
+    @Throws(IOException::class)
+    fun encode(uc: UpdateContainer): ByteArray? {
+        val keyframe = keyframeRequested || framesFromKeyframe >= keyframeInterval
+
+        // find changed fields
+        var changed = 0L
+        for (i in 0 until UpdateContainer.fieldCount) {
+            val bit = 1L shl i
+            if (fields and bit == 0L) {
+                continue
+            }
+            fieldWriter.reset()
+            uc.writeField(fieldWriter, i)
+            val value = fieldWriter.toByteArray()
+            if (keyframe || !value.contentEquals(lastValues[i])) {
+                lastValues[i] = value
+                changed = changed or bit
+            }
+        }
+        if (changed == 0L) {
+            return null
+        }
+
+        // write frame
+        val dw = DataWriterBigEndian()
+        dw.writeInt(UpdateContainer.DELTA_VERSION)
+        dw.writeBoolean(keyframe)
+        dw.writeInt(sequence)
+        dw.writeLong(changed)
+        for (i in 0 until UpdateContainer.fieldCount) {
+            if (changed and (1L shl i) != 0L) {
+                dw.write(lastValues[i]!!)
+            }
+        }
+
+        // update state
+        sequence++
+        if (keyframe) {
+            keyframeRequested = false
+            framesFromKeyframe = 0
+        } else {
+            framesFromKeyframe++
+        }
+        return dw.toByteArray()
+    }
+
+    companion object {
+
+        // default number of frames between two keyframes
+        const val DEFAULT_KEYFRAME_INTERVAL = 30
+    }
+}
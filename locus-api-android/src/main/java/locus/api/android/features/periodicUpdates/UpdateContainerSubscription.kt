@@ -0,0 +1,257 @@
+package locus.api.android.features.periodicUpdates
+
+import android.content.ComponentName
+import android.content.Context
+import android.content.Intent
+import android.content.ServiceConnection
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.IBinder
+import android.os.Looper
+import android.os.RemoteException
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import locus.api.android.ActionBasics
+import locus.api.android.objects.LocusVersion
+import locus.api.android.objects.ParcelableContainer
+import locus.api.android.utils.LocusConst
+
+/**
+ * Subscription for fresh [UpdateContainer] values pushed by Locus.
+ *
+ * Consumer defines field groups it is interested in (`UpdateContainer.FIELD_GROUP_*`) and
+ * minimal interval between updates. Locus then sends only selected values and only when they
+ * change, as a delta stream (see [UpdateContainerDeltaEncoder]) if supported. In case, Locus
+ * does not offer the subscription service (older versions), container is periodically polled
+ * over [ActionBasics.getUpdateContainer] instead.
+ *
+ * Listener is always called on the main thread. Received container is updated in place, so it
+ * should not be kept or modified outside of the listener.
+ *
+ * @param ctx current context
+ * @param lv Locus version to subscribe to
+ * @param fieldGroups bitmask of requested field groups
+ * @param minIntervalMs minimal interval between two updates in milliseconds
+ * @param listener listener for updates
+ */
+class UpdateContainerSubscription(
+    ctx: Context,
+    private val lv: LocusVersion,
+    private val fieldGroups: Int,
+    private val minIntervalMs: Long,
+    private val listener: Listener
+) {
+
+    /**
+     * Listener for fresh values.
+     */
+    fun interface Listener {
+
+        /**
+         * New values received.
+         *
+         * @param uc container with fresh values
+         * @param updatedGroups bitmask of field groups updated by this update
+         */
+        fun onUpdate(uc: UpdateContainer, updatedGroups: Int)
+    }
+
+    // application context
+    private val ctx = ctx.applicationContext ?: ctx
+
+    // handler for main thread
+    private val handler = Handler(Looper.getMainLooper())
+
+    // decoder of delta stream, holds container updated by received values
+    private val decoder = UpdateContainerDeltaDecoder()
+
+    // container updated by received values
+    private val container = decoder.container
+
+    // connected service
+    private var service: IUpdateContainerService? = null
+
+    // flag if subscription is active
+    private var started = false
+
+    // flag if service is bound
+    private var bound = false
+
+    // thread for polling in case, service is not available
+    private var pollThread: HandlerThread? = null
+
+    /**
+     * Flag if updates are pushed by Locus. If `false`, values are polled.
+     */
+    val isPushBased: Boolean
+        get() = bound
+
+    /**
+     * Listener called by Locus.
+     */
+    private val remoteListener = object : IUpdateContainerListener.Stub() {
+
+        override fun onUpdate(data: ParcelableContainer?) {
+            val bytes = data?.data ?: return
+            handler.post {
+                if (!started) {
+                    return@post
+                }
+                try {
+                    val groups = container.readFieldGroups(bytes)
+                    listener.onUpdate(container, groups)
+                } catch (e: Exception) {
+                    logE(tag = TAG, ex = e) { "onUpdate(), problem with received data" }
+                }
+            }
+        }
+
+        override fun onUpdateDelta(frame: ParcelableContainer?) {
+            val bytes = frame?.data ?: return
+            handler.post {
+                if (!started) {
+                    return@post
+                }
+                try {
+                    val groups = decoder.apply(bytes)
+                    if (groups == UpdateContainerDeltaDecoder.KEYFRAME_REQUIRED) {
+                        service?.requestKeyframe(this)
+                    } else {
+                        listener.onUpdate(container, groups)
+                    }
+                } catch (e: Exception) {
+                    logE(tag = TAG, ex = e) { "onUpdateDelta(), problem with received data" }
+                }
+            }
+        }
+    }
+
+    /**
+     * Connection to the Locus service.
+     */
+    private val connection = object : ServiceConnection {
+
+        override fun onServiceConnected(name: ComponentName, binder: IBinder) {
+            val service = IUpdateContainerService.Stub.asInterface(binder)
+            this@UpdateContainerSubscription.service = service
+            try {
+                // use delta stream if supported
+                if (service.apiVersion >= 1) {
+                    service.subscribeDelta(remoteListener, fieldGroups, minIntervalMs)
+                } else {
+                    service.subscribe(remoteListener, fieldGroups, minIntervalMs)
+                }
+            } catch (e: RemoteException) {
+                logE(tag = TAG, ex = e) { "onServiceConnected($name), unable to subscribe" }
+            }
+        }
+
+        override fun onServiceDisconnected(name: ComponentName) {
+            // service is connected again automatically once available
+            service = null
+        }
+    }
+
+    /**
+     * Start receiving of updates. Has to be called from the main thread.
+     */
+    fun start() {
+        if (started) {
+            return
+        }
+        started = true
+
+        // bind Locus service
+        val intent = Intent(LocusConst.ACTION_UPDATE_CONTAINER_SERVICE)
+            .setPackage(lv.packageName)
+        bound = try {
+            ctx.bindService(intent, connection, Context.BIND_AUTO_CREATE)
+        } catch (e: SecurityException) {
+            logE(tag = TAG, ex = e) { "start(), unable to bind service" }
+            false
+        }
+
+        // fallback to polling
+        if (!bound) {
+            try {
+                ctx.unbindService(connection)
+            } catch (e: IllegalArgumentException) {
+                // connection was not registered
+            }
+            logW(tag = TAG) { "start(), service not available in $lv, polling values" }
+            startPolling()
+        }
+    }
+
+    /**
+     * Stop receiving of updates. Has to be called from the main thread.
+     */
+    fun stop() {
+        if (!started) {
+            return
+        }
+        started = false
+
+        // stop service
+        if (bound) {
+            try {
+                service?.unsubscribe(remoteListener)
+            } catch (e: RemoteException) {
+                logW(tag = TAG) { "stop(), unable to unsubscribe: ${e.message}" }
+            }
+            ctx.unbindService(connection)
+            service = null
+            bound = false
+        }
+
+        // stop polling
+        pollThread?.quit()
+        pollThread = null
+    }
+
+    //*************************************************
+    // POLLING
+    //*************************************************
+
+    private fun startPolling() {
+        val thread = HandlerThread("UpdateContainerPoll").apply { start() }
+        val pollHandler = Handler(thread.looper)
+        pollThread = thread
+        pollHandler.post(object : Runnable {
+
+            override fun run() {
+                // read into the current container; the next poll is planned only once the
+                // listener is done with it, so it is never modified while the listener reads it
+                val uc = try {
+                    ActionBasics.getUpdateContainer(ctx, lv, container)
+                } catch (e: Exception) {
+                    logE(tag = TAG, ex = e) { "poll(), unable to obtain container" }
+                    null
+                }
+                if (uc == null) {
+                    planNext()
+                    return
+                }
+                handler.post {
+                    if (started && pollThread === thread) {
+                        listener.onUpdate(uc, UpdateContainer.FIELD_GROUP_ALL)
+                        planNext()
+                    }
+                }
+            }
+
+            private fun planNext() {
+                pollHandler.postDelayed(this, minIntervalMs.coerceAtLeast(MIN_POLL_INTERVAL))
+            }
+        })
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "UpdateContainerSubscription"
+
+        // minimal interval of polling, Locus generates container max. once per 500 ms
+        private const val MIN_POLL_INTERVAL = 500L
+    }
+}
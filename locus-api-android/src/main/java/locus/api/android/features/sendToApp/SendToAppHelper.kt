@@ -12,8 +12,13 @@
 package locus.api.android.features.sendToApp
 
 import android.content.Context
+import android.content.Intent
 import android.net.Uri
+import android.os.Build
+import android.os.Bundle
+import androidx.annotation.ChecksSdkIntAtLeast
 import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
 import locus.api.objects.Storable
 import locus.api.utils.Utils
 import java.io.*
@@ -73,8 +78,73 @@ object SendToAppHelper {
         }
     }
 
+    /**
+     * Write data into a new shared memory region and put handle of the region into [intent].
+     * Shared memory is available since Android 8.1, on older systems nothing is written.
+     *
+     * @param intent intent that will carry the handle
+     * @param extraName name of the extra for the handle
+     * @param data data to write
+     * @return `true` if data were correctly written
+     */
+    internal fun sendDataWriteToSharedMemory(
+        intent: Intent,
+        extraName: String,
+        data: List<Storable>
+    ): Boolean {
+        if (!isSharedMemorySupported()) {
+            logW(tag = TAG) { "sendDataWriteToSharedMemory(), not supported on this system" }
+            return false
+        }
+        val handle = SendToAppSharedMemory.create(data)
+            ?: return false
+        intent.putExtras(Bundle().apply { putBinder(extraName, handle) })
+        return true
+    }
+
+    /**
+     * Check if transport of data over shared memory is supported on this system.
+     */
+    @ChecksSdkIntAtLeast(api = Build.VERSION_CODES.O_MR1)
+    internal fun isSharedMemorySupported(): Boolean {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1
+    }
+
     // RECEIVE DATA
 
+    /**
+     * Read data from the shared memory region, which handle is stored in [intent].
+     */
+    internal inline fun <reified T : Storable> readDataFromSharedMemory(
+        intent: Intent,
+        extraName: String
+    ): List<T> {
+        if (!isSharedMemorySupported()) {
+            return listOf()
+        }
+        val handle = intent.extras?.getBinder(extraName)
+            ?: return listOf()
+        return SendToAppSharedMemory.readList(T::class.java, handle)
+    }
+
+    /**
+     * Read data split into chunks sent over more intents. Data are returned once the last chunk
+     * is received.
+     */
+    internal inline fun <reified T : Storable> readDataFromChunks(
+        intent: Intent,
+        extraName: String
+    ): List<T> {
+        try {
+            val data = SendToAppTransport.receiveChunk(intent, extraName)
+                ?: return listOf()
+            return Storable.readList(T::class.java, data)
+        } catch (e: Exception) {
+            logE(tag = TAG, ex = e) { "readDataFromChunks($intent, $extraName)" }
+        }
+        return listOf()
+    }
+
     /**
      * Read data stored in certain path. This method is deprecated and should not be used. Instead
      * use new method over FileUri system.
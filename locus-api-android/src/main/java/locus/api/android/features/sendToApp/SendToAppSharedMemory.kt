@@ -0,0 +1,178 @@
+package locus.api.android.features.sendToApp
+
+import android.os.Binder
+import android.os.Build
+import android.os.Handler
+import android.os.IBinder
+import android.os.Looper
+import android.os.Parcel
+import android.os.SharedMemory
+import android.system.OsConstants
+import androidx.annotation.RequiresApi
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import locus.api.objects.Storable
+import locus.api.utils.DataWriterBigEndian
+
+/**
+ * Transport of serialized data over the shared memory region.
+ *
+ * Sender writes data into a [SharedMemory] region and sends to the receiver only a small
+ * [IBinder] handle (as an extra of the intent). Receiver obtains the region over this handle
+ * and reads data from the mapped memory. Data are so not limited by the size of the binder
+ * transaction and are not written to storage as with the file-based transport.
+ *
+ * Region is released once the receiver obtains it or after [RELEASE_TIMEOUT], if it is never
+ * obtained.
+ */
+@RequiresApi(Build.VERSION_CODES.O_MR1)
+internal object SendToAppSharedMemory {
+
+    // tag for logger
+    private const val TAG = "SendToAppSharedMemory"
+
+    // descriptor of the handle
+    private const val DESCRIPTOR = "locus.api.android.features.sendToApp.SharedMemory"
+
+    // transaction that returns the memory region
+    private const val TRANSACTION_GET_DATA = IBinder.FIRST_CALL_TRANSACTION
+
+    // time after which not obtained region is released
+    private const val RELEASE_TIMEOUT = 60_000L
+
+    /**
+     * Handle that provides the memory region to the receiver.
+     */
+    private class Provider(private var memory: SharedMemory?) : Binder() {
+
+        override fun onTransact(code: Int, data: Parcel, reply: Parcel?, flags: Int): Boolean {
+            if (code != TRANSACTION_GET_DATA) {
+                return super.onTransact(code, data, reply, flags)
+            }
+            data.enforceInterface(DESCRIPTOR)
+            if (reply == null) {
+                return false
+            }
+            synchronized(this) {
+                val memory = memory
+                reply.writeNoException()
+                if (memory == null) {
+                    reply.writeInt(0)
+                } else {
+                    // descriptor is duplicated by the parcel, so region may be released now
+                    reply.writeInt(1)
+                    memory.writeToParcel(reply, 0)
+                }
+                release()
+            }
+            return true
+        }
+
+        /**
+         * Release region held by this handle.
+         */
+        fun release() {
+            synchronized(this) {
+                memory?.close()
+                memory = null
+            }
+        }
+    }
+
+    /**
+     * Write list of items into a new memory region.
+     *
+     * @param data items to write
+     * @return handle of the region or `null` in case of problem
+     */
+    fun create(data: List<Storable>): IBinder? {
+        return try {
+            val dw = DataWriterBigEndian()
+            dw.writeListStorable(data)
+            create(dw)
+        } catch (e: Exception) {
+            logE(tag = TAG, ex = e) { "create($data)" }
+            null
+        }
+    }
+
+    /**
+     * Write content of the writer into a new memory region.
+     *
+     * @param dw writer with data
+     * @return handle of the region
+     */
+    fun create(dw: DataWriterBigEndian): IBinder {
+        val memory = SharedMemory.create(TAG, dw.size().coerceAtLeast(1))
+        try {
+            val buffer = memory.mapReadWrite()
+            try {
+                dw.writeTo(buffer)
+            } finally {
+                SharedMemory.unmap(buffer)
+            }
+
+            // receiver is allowed to read data only
+            memory.setProtect(OsConstants.PROT_READ)
+        } catch (e: Exception) {
+            memory.close()
+            throw e
+        }
+
+        // release region in case, receiver never asks for it
+        val provider = Provider(memory)
+        Handler(Looper.getMainLooper()).postDelayed({
+            provider.release()
+        }, RELEASE_TIMEOUT)
+        return provider
+    }
+
+    /**
+     * Read data from the region defined by the received handle.
+     *
+     * @param handle handle of the region
+     * @return data stored in the region or `null` if region is not available anymore
+     */
+    fun read(handle: IBinder): ByteArray? {
+        val data = Parcel.obtain()
+        val reply = Parcel.obtain()
+        try {
+            data.writeInterfaceToken(DESCRIPTOR)
+            handle.transact(TRANSACTION_GET_DATA, data, reply, 0)
+            reply.readException()
+            if (reply.readInt() == 0) {
+                logW(tag = TAG) { "read($handle), region already released" }
+                return null
+            }
+
+            // copy data from the mapped region
+            return SharedMemory.CREATOR.createFromParcel(reply).use { memory ->
+                val buffer = memory.mapReadOnly()
+                try {
+                    ByteArray(buffer.remaining()).also { buffer.get(it) }
+                } finally {
+                    SharedMemory.unmap(buffer)
+                }
+            }
+        } finally {
+            data.recycle()
+            reply.recycle()
+        }
+    }
+
+    /**
+     * Read list of items from the region defined by the received handle.
+     *
+     * @param claz class of items
+     * @param handle handle of the region
+     * @return read items or empty list in case of problem
+     */
+    fun <T : Storable> readList(claz: Class<T>, handle: IBinder): List<T> {
+        return try {
+            read(handle)?.let { Storable.readList(claz, it) } ?: listOf()
+        } catch (e: Exception) {
+            logE(tag = TAG, ex = e) { "readList($claz, $handle)" }
+            listOf()
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package locus.api.android.features.sendToApp
+
+import android.content.Intent
+import android.os.Bundle
+import android.os.SystemClock
+import com.asamm.loggerV2.logD
+import com.asamm.loggerV2.logE
+import com.asamm.loggerV2.logW
+import locus.api.objects.Storable
+import locus.api.utils.DataWriterBigEndian
+import java.util.*
+
+/**
+ * Automatic selection of transport for data sent to Locus app.
+ *
+ * Data are serialized only once and by known size, the cheapest transport is used:
+ *
+ * 1. directly in the intent, if data fits into [MAX_INTENT_DATA_SIZE]
+ * 2. over the shared memory region ([SendToAppSharedMemory]), if system supports it
+ * 3. split into chunks sent over multiple intents, which receiver joins back; actions applied on
+ * received data (import, centering, extras of the caller) go only with the last chunk. Chunks
+ * need ordered delivery, so they are used only with broadcasts, not with activity starts
+ * 4. directly in the intent, limited by the binder transaction
+ */
+internal object SendToAppTransport {
+
+    // tag for logger
+    private const val TAG = "SendToAppTransport"
+
+    /**
+     * Maximal size of data sent directly over the intent. Binder transaction buffer has 1 MB and
+     * is shared by all running transactions of the process, so keep enough space for others.
+     */
+    const val MAX_INTENT_DATA_SIZE = 256 * 1024
+
+    // time after which not completed received transfer is dropped
+    private const val CHUNK_TRANSFER_TIMEOUT = 60_000L
+
+    // maximal number of not completed received transfers
+    private const val MAX_CHUNK_TRANSFERS = 4
+
+    // maximal size of all not completed received transfers
+    private const val MAX_CHUNK_TRANSFERS_SIZE = 64 * 1024 * 1024L
+
+    /**
+     * Names of extras used for single type of data.
+     *
+     * @param sharedMemory extra for handle of shared memory region
+     * @param chunk extra for part of data split into chunks
+     */
+    class Extras(val sharedMemory: String, val chunk: String)
+
+    /**
+     * Part of data received over the intent.
+     */
+    private class ChunkTransfer(count: Int) {
+
+        // received parts
+        val chunks = arrayOfNulls<ByteArray>(count)
+
+        // maximal size of the complete transfer
+        val maxSize = count.toLong() * MAX_INTENT_DATA_SIZE
+
+        // number of received parts
+        var received = 0
+
+        // time of the last received part
+        var lastUpdate = SystemClock.elapsedRealtime()
+    }
+
+    // transfers received by chunks, that are not yet completed
+    private val chunkTransfers = HashMap<String, ChunkTransfer>()
+
+    //*************************************************
+    // SEND
+    //*************************************************
+
+    /**
+     * Send list of items over the most suitable transport.
+     *
+     * @param data items to send
+     * @param extras names of extras used for data
+     * @param canUseExtendedTransport `true` if target Locus app is able to receive data over
+     * shared memory or chunks
+     * @param intentData fill intent with data sent directly, in case they are small enough
+     * @param sender send single prepared intent, that completes the data
+     * @param chunkSender send intent with a single chunk, that is not the last one. Such intent
+     * has to be delivered over the same ordered channel (broadcast) as [sender] uses, but without
+     * any actions applied on received data. `null` if channel does not keep the order of
+     * intents (activity start), chunks are not used then
+     * @param fallback send data too big for the intent in case Locus app is not able to receive
+     * them over shared memory or chunks (usually over the file). If not defined, data are sent
+     * directly in the intent, same as small data, and are limited by the binder transaction.
+     * @return `true` if all data were correctly send
+     */
+    fun send(
+        data: List<Storable>,
+        extras: Extras,
+        canUseExtendedTransport: Boolean,
+        intentData: Intent.(DataWriterBigEndian) -> Unit,
+        sender: (Intent) -> Boolean,
+        chunkSender: ((Intent) -> Boolean)?,
+        fallback: (() -> Boolean)? = null
+    ): Boolean {
+        // serialize data and measure their size
+        val dw = DataWriterBigEndian()
+        try {
+            dw.writeListStorable(data)
+        } catch (e: Exception) {
+            logE(tag = TAG, ex = e) { "send(), unable to serialize data" }
+            return false
+        }
+        val size = dw.size()
+
+        // small data over intent
+        if (size <= MAX_INTENT_DATA_SIZE) {
+            return sender(Intent().apply { intentData(dw) })
+        }
+
+        // Locus is not able to receive big data, use fallback or the intent as before
+        if (!canUseExtendedTransport) {
+            if (fallback != null) {
+                logD(tag = TAG) { "send(), sending $size B over fallback transport" }
+                return fallback()
+            }
+            logW(tag = TAG) {
+                "send(), sending $size B directly in intent, may exceed the binder limit"
+            }
+            return sender(Intent().apply { intentData(dw) })
+        }
+
+        // shared memory
+        if (SendToAppHelper.isSharedMemorySupported()) {
+            logD(tag = TAG) { "send(), sending $size B over shared memory" }
+            val handle = try {
+                SendToAppSharedMemory.create(dw)
+            } catch (e: Exception) {
+                logW(tag = TAG) { "send(), unable to use shared memory: ${e.message}" }
+                null
+            }
+            if (handle != null) {
+                return sender(Intent().apply {
+                    putExtras(Bundle().apply { putBinder(extras.sharedMemory, handle) })
+                })
+            }
+        }
+
+        // split into chunks
+        if (chunkSender != null) {
+            logD(tag = TAG) { "send(), sending $size B in chunks" }
+            return sendChunks(dw.toByteArray(), extras.chunk, sender, chunkSender)
+        }
+
+        // no other option, send directly
+        logW(tag = TAG) {
+            "send(), sending $size B directly in intent, may exceed the binder limit"
+        }
+        return sender(Intent().apply { intentData(dw) })
+    }
+
+    /**
+     * Send data split into chunks, each over own intent. Only the last chunk is sent over the
+     * [sender], so actions applied on received data happen just once.
+     */
+    private fun sendChunks(
+        data: ByteArray,
+        extraChunk: String,
+        sender: (Intent) -> Boolean,
+        chunkSender: (Intent) -> Boolean
+    ): Boolean {
+        val transferId = UUID.randomUUID().toString()
+        val count = (data.size + MAX_INTENT_DATA_SIZE - 1) / MAX_INTENT_DATA_SIZE
+        for (i in 0 until count) {
+            val from = i * MAX_INTENT_DATA_SIZE
+            val to = minOf(from + MAX_INTENT_DATA_SIZE, data.size)
+            val intent = Intent().apply {
+                putExtra(extraChunk, data.copyOfRange(from, to))
+                putExtra(EXTRA_CHUNK_TRANSFER_ID, transferId)
+                putExtra(EXTRA_CHUNK_INDEX, i)
+                putExtra(EXTRA_CHUNK_COUNT, count)
+            }
+            val sent = if (i == count - 1) {
+                sender(intent)
+            } else {
+                chunkSender(intent)
+            }
+            if (!sent) {
+                logE(tag = TAG) { "sendChunks(), unable to send chunk $i of $count" }
+                return false
+            }
+        }
+        return true
+    }
+
+    //*************************************************
+    // RECEIVE
+    //*************************************************
+
+    /**
+     * Receive single chunk of data sent by [send]. Only limited number and size of not completed
+     * transfers is kept, chunks of new transfers over the limit are rejected.
+     *
+     * @param intent received intent
+     * @param extraChunk name of extra with the part of data
+     * @return complete data once the last chunk is received, otherwise `null`
+     */
+    fun receiveChunk(intent: Intent, extraChunk: String): ByteArray? {
+        val chunk = intent.getByteArrayExtra(extraChunk)
+        val transferId = intent.getStringExtra(EXTRA_CHUNK_TRANSFER_ID)
+        val index = intent.getIntExtra(EXTRA_CHUNK_INDEX, -1)
+        val count = intent.getIntExtra(EXTRA_CHUNK_COUNT, 0)
+        if (chunk == null || transferId == null || index !in 0 until count
+                || chunk.size > MAX_INTENT_DATA_SIZE) {
+            logW(tag = TAG) { "receiveChunk(), invalid chunk $transferId, $index / $count" }
+            return null
+        }
+
+        // store chunk
+        val transfer = synchronized(chunkTransfers) {
+            dropExpiredTransfers()
+            val transfer = chunkTransfers[transferId]
+                ?: createTransfer(transferId, count)
+                ?: return null
+            if (transfer.chunks.size != count) {
+                logW(tag = TAG) { "receiveChunk(), invalid count of chunks for $transferId" }
+                return null
+            }
+            if (transfer.chunks[index] == null) {
+                transfer.chunks[index] = chunk
+                transfer.received++
+            }
+            transfer.lastUpdate = SystemClock.elapsedRealtime()
+            if (transfer.received < count) {
+                return null
+            }
+            chunkTransfers.remove(transferId)
+            transfer
+        }
+
+        // join all chunks
+        val result = ByteArray(transfer.chunks.sumOf { it!!.size })
+        var offset = 0
+        for (part in transfer.chunks) {
+            System.arraycopy(part!!, 0, result, offset, part.size)
+            offset += part.size
+        }
+        return result
+    }
+
+    /**
+     * Create and register new transfer, if limits of not completed transfers allow it.
+     */
+    private fun createTransfer(transferId: String, count: Int): ChunkTransfer? {
+        val size = chunkTransfers.values.sumOf { it.maxSize }
+        if (chunkTransfers.size >= MAX_CHUNK_TRANSFERS
+                || size + count.toLong() * MAX_INTENT_DATA_SIZE > MAX_CHUNK_TRANSFERS_SIZE) {
+            logW(tag = TAG) {
+                "createTransfer(), limit of incomplete transfers reached, rejecting $transferId"
+            }
+            return null
+        }
+        return ChunkTransfer(count).also { chunkTransfers[transferId] = it }
+    }
+
+    /**
+     * Remove transfers that did not receive any chunk for a long time.
+     */
+    private fun dropExpiredTransfers() {
+        val now = SystemClock.elapsedRealtime()
+        val iterator = chunkTransfers.entries.iterator()
+        while (iterator.hasNext()) {
+            val entry = iterator.next()
+            if (now - entry.value.lastUpdate > CHUNK_TRANSFER_TIMEOUT) {
+                logW(tag = TAG) { "dropExpiredTransfers(), dropping incomplete ${entry.key}" }
+                iterator.remove()
+            }
+        }
+    }
+
+    // ID of transfer the chunk belongs to
+    private const val EXTRA_CHUNK_TRANSFER_ID = "INTENT_EXTRA_CHUNK_TRANSFER_ID"
+
+    // index of the chunk in transfer
+    private const val EXTRA_CHUNK_INDEX = "INTENT_EXTRA_CHUNK_INDEX"
+
+    // total number of chunks in transfer
+    private const val EXTRA_CHUNK_COUNT = "INTENT_EXTRA_CHUNK_COUNT"
+}
@@ -46,6 +46,14 @@ class SendPointBase {
                     SendToAppHelper.readDataFromUri(ctx,
                             intent.getParcelableExtra(LocusConst.INTENT_EXTRA_POINTS_FILE_URI)!!)
                 }
+                intent.hasExtra(LocusConst.INTENT_EXTRA_POINTS_SHARED_MEMORY) -> {
+                    SendToAppHelper.readDataFromSharedMemory(intent,
+                            LocusConst.INTENT_EXTRA_POINTS_SHARED_MEMORY)
+                }
+                intent.hasExtra(LocusConst.INTENT_EXTRA_POINTS_CHUNK) -> {
+                    SendToAppHelper.readDataFromChunks(intent,
+                            LocusConst.INTENT_EXTRA_POINTS_CHUNK)
+                }
                 intent.hasExtra(LocusConst.INTENT_EXTRA_POINTS_FILE_PATH) -> {
                     // backward compatibility
                     SendToAppHelper.readDataFromPath(
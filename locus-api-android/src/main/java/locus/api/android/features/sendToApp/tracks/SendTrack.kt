@@ -45,4 +45,10 @@ class SendTrack(sendMode: SendMode, track: Track,
             putExtra(LocusConst.INTENT_EXTRA_START_NAVIGATION, startNavigation)
         }
     }
+
+    override fun sendOverSharedMemory(ctx: Context, lv: LocusVersion?): Boolean {
+        return sendOverSharedMemoryImpl(ctx, lv) {
+            putExtra(LocusConst.INTENT_EXTRA_START_NAVIGATION, startNavigation)
+        }
+    }
 }
\ No newline at end of file
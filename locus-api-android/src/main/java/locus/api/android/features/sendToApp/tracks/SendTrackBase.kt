@@ -18,6 +18,7 @@ import com.asamm.loggerV2.logE
 import locus.api.android.features.sendToApp.SendMode
 import locus.api.android.features.sendToApp.SendToAppBase
 import locus.api.android.features.sendToApp.SendToAppHelper
+import locus.api.android.features.sendToApp.SendToAppTransport
 import locus.api.android.objects.LocusVersion
 import locus.api.android.objects.VersionCode
 import locus.api.android.utils.LocusConst
@@ -38,12 +39,28 @@ abstract class SendTrackBase internal constructor(
     internal val tracks: List<Track>
 ) : SendToAppBase(sendMode) {
 
+    /**
+     * File used by [send] for tracks too big for a single intent, in case Locus app is not able
+     * to receive them over the shared memory or chunks. Has to be set together with
+     * [fallbackFileUri], otherwise such tracks are sent directly in the intent and are limited
+     * by the size of the binder transaction.
+     */
+    var fallbackFile: File? = null
+
+    /**
+     * Uri from `FileProvider`, which represents [fallbackFile].
+     */
+    var fallbackFileUri: Uri? = null
+
     // SEND DATA
 
     /**
      * Send defined parameters to the Locus apps. System is based on the 'Intent - Bundle' mechanism.
-     * Method is useful only for data less then 1MB big. For bigger tracks, use alternative method
-     * over FileUri system `sendOverFile`.
+     * Size of serialized tracks is measured first. Tracks too big for a single intent are sent
+     * over the shared memory (Android 8.1+) or split into more intents, that Locus joins back.
+     * This requires Locus app able to receive such data ([VersionCode.UPDATE_18]). For older
+     * Locus apps, big tracks are sent over [fallbackFile] (same as `sendOverFile`) if defined,
+     * otherwise directly in the intent as before, limited by the binder transaction size.
      */
     abstract fun send(
         ctx: Context,
@@ -65,23 +82,48 @@ abstract class SendTrackBase internal constructor(
             throw RequiredVersionMissingException(VersionCode.UPDATE_01.vcFree)
         }
 
-        // create and start intent
-        val intent = Intent()
-        if (tracks.size == 1) {
-            intent.putExtra(
-                LocusConst.INTENT_EXTRA_TRACKS_SINGLE,
-                tracks.first().asBytes
-            )
-        } else {
-            intent.putExtra(
-                LocusConst.INTENT_EXTRA_TRACKS_MULTI,
-                Storable.getAsBytes(tracks)
-            )
-        }
-        intentExtra?.invoke(intent)
+        // create and start intent(s) over the suitable transport
+        return SendToAppTransport.send(tracks, TRANSPORT_EXTRAS,
+            canUseExtendedTransport = lv.isVersionValid(VersionCode.UPDATE_18),
+            intentData = { dw ->
+                if (tracks.size == 1) {
+                    // single track, skip size of the list
+                    putExtra(
+                        LocusConst.INTENT_EXTRA_TRACKS_SINGLE,
+                        dw.toByteArray(4)
+                    )
+                } else {
+                    putExtra(
+                        LocusConst.INTENT_EXTRA_TRACKS_MULTI,
+                        dw.toByteArray()
+                    )
+                }
+            },
+            sender = { intent ->
+                intentExtra?.invoke(intent)
 
-        // send request
-        return sendFinal(ctx, intent, lv)
+                // send request
+                sendFinal(ctx, intent, lv)
+            },
+            chunkSender = if (sendMode is SendMode.Silent) {
+                // chunks only over ordered broadcasts, same as the last one
+                { intent -> sendFinal(ctx, intent, lv) }
+            } else {
+                null
+            },
+            fallback = createFileFallback(ctx, lv, intentExtra))
+    }
+
+    /**
+     * Create sending over [fallbackFile], if defined.
+     */
+    private fun createFileFallback(
+        ctx: Context, lv: LocusVersion,
+        intentExtra: (Intent.() -> Unit)?
+    ): (() -> Boolean)? {
+        val file = fallbackFile ?: return null
+        val fileUri = fallbackFileUri ?: return null
+        return { sendOverFileImpl(ctx, lv, file, fileUri, intentExtra) }
     }
 
     /**
@@ -152,6 +194,54 @@ abstract class SendTrackBase internal constructor(
         }
     }
 
+    /**
+     * Send tracks over the shared memory region. Serialized tracks are written into memory
+     * shared with Locus app and only small handle of the region is sent over the intent, so
+     * neither size limit of the intent nor write to storage apply. Available since Android 8.1
+     * and for Locus app able to read [LocusConst.INTENT_EXTRA_TRACKS_SHARED_MEMORY]
+     * ([VersionCode.UPDATE_18]).
+     *
+     * **Experimental**: no released Locus app reads shared memory yet, so until a Locus app with
+     * [VersionCode.UPDATE_18] is published, this method always throws
+     * [RequiredVersionMissingException]. Use `sendOverFile` instead.
+     *
+     * @param ctx current ctx
+     * @param lv required Locus version
+     * @return `true` if request was correctly send
+     */
+    @Throws(RequiredVersionMissingException::class)
+    abstract fun sendOverSharedMemory(
+        ctx: Context,
+        lv: LocusVersion? = LocusUtils.getActiveVersion(ctx, VersionCode.UPDATE_18)
+    ): Boolean
+
+    @Throws(RequiredVersionMissingException::class)
+    internal fun sendOverSharedMemoryImpl(
+        ctx: Context, lv: LocusVersion?,
+        intentExtra: (Intent.() -> Unit)? = null
+    ): Boolean {
+        // validate tracks
+        if (!validateTracks()) {
+            return false
+        }
+
+        // validate version
+        if (lv == null || !lv.isVersionValid(VersionCode.UPDATE_18)) {
+            throw RequiredVersionMissingException(VersionCode.UPDATE_18)
+        }
+
+        // write data to shared memory and send intent with handle of the region
+        val intent = Intent()
+        if (!SendToAppHelper.sendDataWriteToSharedMemory(
+                intent, LocusConst.INTENT_EXTRA_TRACKS_SHARED_MEMORY, tracks
+            )
+        ) {
+            return false
+        }
+        intentExtra?.invoke(intent)
+        return sendFinal(ctx, intent, lv)
+    }
+
     // TOOLS
 
     /**
@@ -177,11 +267,24 @@ abstract class SendTrackBase internal constructor(
         // tag for logger
         private const val TAG = "SendTrackBase"
 
+        // extras for tracks sent over shared memory or chunks
+        private val TRANSPORT_EXTRAS = SendToAppTransport.Extras(
+            LocusConst.INTENT_EXTRA_TRACKS_SHARED_MEMORY,
+            LocusConst.INTENT_EXTRA_TRACKS_CHUNK
+        )
+
         // RECEIVE DATA
 
         /**
-         * Invert method to [SendTrackBase.sendOverFile]. This load serialized data from
-         * a file stored in [Intent].
+         * Invert method to [SendTrackBase.sendOverFile] or [SendTrackBase.sendOverSharedMemory].
+         * This load serialized data from a file or shared memory region stored in [Intent].
+         *
+         * Tracks too big for a single intent may be sent by [SendTrackBase.send] split into more
+         * intents. In this case, tracks are returned once the last part is received and for
+         * previous parts, result is empty.
+         *
+         * Shared memory and chunks are experimental, they are sent only to Locus app with
+         * [VersionCode.UPDATE_18], that is not released yet.
          *
          * @param ctx context
          * @param intent intent data
@@ -195,6 +298,16 @@ abstract class SendTrackBase internal constructor(
                         intent.getParcelableExtra(LocusConst.INTENT_EXTRA_TRACKS_FILE_URI)!!
                     )
                 }
+                intent.hasExtra(LocusConst.INTENT_EXTRA_TRACKS_SHARED_MEMORY) -> {
+                    SendToAppHelper.readDataFromSharedMemory(
+                        intent, LocusConst.INTENT_EXTRA_TRACKS_SHARED_MEMORY
+                    )
+                }
+                intent.hasExtra(LocusConst.INTENT_EXTRA_TRACKS_CHUNK) -> {
+                    SendToAppHelper.readDataFromChunks(
+                        intent, LocusConst.INTENT_EXTRA_TRACKS_CHUNK
+                    )
+                }
                 else -> {
                     listOf()
                 }
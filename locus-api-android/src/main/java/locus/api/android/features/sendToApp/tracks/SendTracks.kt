@@ -34,4 +34,8 @@ class SendTracks(sendMode: SendMode, tracks: List<Track>,
             cacheFile: File, cacheFileUri: Uri): Boolean {
         return sendOverFileImpl(ctx, lv, cacheFile, cacheFileUri)
     }
+
+    override fun sendOverSharedMemory(ctx: Context, lv: LocusVersion?): Boolean {
+        return sendOverSharedMemoryImpl(ctx, lv)
+    }
 }
\ No newline at end of file
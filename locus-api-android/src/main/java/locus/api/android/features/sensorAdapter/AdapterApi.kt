@@ -58,6 +58,30 @@ object AdapterApi {
      */
     const val INIT_ERROR = 3
 
+    //*************************************************
+    // BATCH FORMATS
+    //*************************************************
+
+    /**
+     * Values of 'SensorValueBatch' travel as locale-independent strings in
+     * `SensorValueBatch.values` only. Understood by every Locus version.
+     */
+    const val BATCH_FORMAT_STRINGS = 0
+
+    /**
+     * Numeric values of 'SensorValueBatch' travel as primitive arrays in
+     * `SensorValueBatch.typedValues`, texts stay in `SensorValueBatch.values`. Used only
+     * once Locus negotiates it over 'ILocusSensorAdapterParser.negotiateBatchFormat'.
+     */
+    const val BATCH_FORMAT_TYPED = 1
+
+    /**
+     * As [BATCH_FORMAT_TYPED], and 'SensorValueBatch.series' additionally carries the
+     * time-series block with every sample and its own timestamp. Older formats receive only
+     * the newest values of the batch.
+     */
+    const val BATCH_FORMAT_SERIES = 2
+
     //*************************************************
     // CONNECTION TYPES
     //*************************************************
@@ -28,7 +28,11 @@ package locus.api.android.features.sensorAdapter
  *   object as [xmlName] and written in `res/xml/locus_adapter.xml` as
  *   `<refId variable="SENSOR_HEART_RATE" />`. Looked up at parse time via [findByName].
  * - **refId** (e.g. `1500`) — integer wire format on the AIDL boundary. Round-trips
- *   `Map<Int, String>` in `SensorValueBatch.values`. Looked up via [findById].
+ *   `Map<Int, String>` in `SensorValueBatch.values` or the `IntArray` of
+ *   `SensorValueBatch.typedValues`. Looked up via [findById].
+ *
+ * Numeric Variables also declare their primitive [valueType], so typed batches carry them as
+ * raw primitives ([toRaw] / [fromRaw]) instead of strings.
  *
  * New built-in Variables added here need a matching nested object plus an entry in the
  * [all] list; both [findById] and [findByName] derive from [all].
@@ -36,6 +40,7 @@ package locus.api.android.features.sensorAdapter
 sealed class LocusVariable<T : Any>(
     val refId: Int,
     val xmlName: String,
+    val valueType: Int,
     private val parser: (String) -> T?,
 ) {
 
@@ -51,6 +56,32 @@ sealed class LocusVariable<T : Any>(
         return parser(value)
     }
 
+    /**
+     * Encode [value] into the raw primitive form of typed batches. `Int` and `Long` are stored
+     * as they are, `Float` as its IEEE 754 bits. Not available for [TYPE_STRING] Variables.
+     */
+    fun toRaw(value: T): Long {
+        return when (value) {
+            is Int -> value.toLong()
+            is Long -> value
+            is Float -> value.toRawBits().toLong()
+            else -> throw IllegalArgumentException("Variable $xmlName has no primitive form")
+        }
+    }
+
+    /**
+     * Decode the value from the raw primitive form of typed batches, see [toRaw].
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun fromRaw(raw: Long): T {
+        return when (valueType) {
+            TYPE_INT -> raw.toInt()
+            TYPE_LONG -> raw
+            TYPE_FLOAT -> Float.fromBits(raw.toInt())
+            else -> throw IllegalStateException("Variable $xmlName has no primitive form")
+        } as T
+    }
+
     //*************************************************
     // CURATED CATALOGUE
     //*************************************************
@@ -59,57 +90,57 @@ sealed class LocusVariable<T : Any>(
      * Current e-bike assist mode as a free-form label (e.g. `"TRAIL"`, `"BOOST"`,
      * `"TOUR"`). Vendor-specific terminology — Locus shows the string verbatim.
      */
-    object AssistMode : LocusVariable<String>(1508, "SENSOR_ASSIST_MODE", { it })
+    object AssistMode : LocusVariable<String>(1508, "SENSOR_ASSIST_MODE", TYPE_STRING, { it })
 
     /**
      * Bicycle battery state of charge in percent (0–100).
      */
-    object BicycleBattery : LocusVariable<Int>(1509, "SENSOR_BICYCLE_BATTERY", String::toIntOrNull)
+    object BicycleBattery : LocusVariable<Int>(1509, "SENSOR_BICYCLE_BATTERY", TYPE_INT, String::toIntOrNull)
 
     /**
      * Selected gear number on bikes that expose it (e.g. Shimano STEPS, 1-based).
      */
-    object BicycleGear : LocusVariable<Int>(1511, "SENSOR_BICYCLE_GEAR", String::toIntOrNull)
+    object BicycleGear : LocusVariable<Int>(1511, "SENSOR_BICYCLE_GEAR", TYPE_INT, String::toIntOrNull)
 
     /**
      * Cadence in revolutions per minute.
      */
-    object Cadence : LocusVariable<Int>(1501, "SENSOR_CADENCE", String::toIntOrNull)
+    object Cadence : LocusVariable<Int>(1501, "SENSOR_CADENCE", TYPE_INT, String::toIntOrNull)
 
     /**
      * Heart rate in beats per minute.
      */
-    object HeartRate : LocusVariable<Int>(1500, "SENSOR_HEART_RATE", String::toIntOrNull)
+    object HeartRate : LocusVariable<Int>(1500, "SENSOR_HEART_RATE", TYPE_INT, String::toIntOrNull)
 
     /**
      * Relative humidity in percent (0–100).
      */
-    object Humidity : LocusVariable<Float>(1507, "SENSOR_HUMIDITY", String::toFloatOrNull)
+    object Humidity : LocusVariable<Float>(1507, "SENSOR_HUMIDITY", TYPE_FLOAT, String::toFloatOrNull)
 
     /**
      * Instantaneous power in watts.
      */
-    object Power : LocusVariable<Int>(1510, "SENSOR_POWER", String::toIntOrNull)
+    object Power : LocusVariable<Int>(1510, "SENSOR_POWER", TYPE_INT, String::toIntOrNull)
 
     /**
      * Estimated remaining range in metres (e-bike, electric vehicle).
      */
-    object Range : LocusVariable<Float>(1512, "SENSOR_RANGE", String::toFloatOrNull)
+    object Range : LocusVariable<Float>(1512, "SENSOR_RANGE", TYPE_FLOAT, String::toFloatOrNull)
 
     /**
      * Speed in metres per second.
      */
-    object Speed : LocusVariable<Float>(1502, "SENSOR_SPEED", String::toFloatOrNull)
+    object Speed : LocusVariable<Float>(1502, "SENSOR_SPEED", TYPE_FLOAT, String::toFloatOrNull)
 
     /**
      * Stride count, monotonically increasing per pairing session.
      */
-    object Strides : LocusVariable<Long>(1504, "SENSOR_STRIDES", String::toLongOrNull)
+    object Strides : LocusVariable<Long>(1504, "SENSOR_STRIDES", TYPE_LONG, String::toLongOrNull)
 
     /**
      * Temperature in degrees Celsius.
      */
-    object Temperature : LocusVariable<Float>(1505, "SENSOR_TEMPERATURE", String::toFloatOrNull)
+    object Temperature : LocusVariable<Float>(1505, "SENSOR_TEMPERATURE", TYPE_FLOAT, String::toFloatOrNull)
 
     //*************************************************
     // LOOKUP
@@ -117,6 +148,26 @@ sealed class LocusVariable<T : Any>(
 
     companion object {
 
+        /**
+         * [valueType] of text Variables, carried only as strings.
+         */
+        const val TYPE_STRING = 0
+
+        /**
+         * [valueType] of `Int` Variables.
+         */
+        const val TYPE_INT = 1
+
+        /**
+         * [valueType] of `Long` Variables.
+         */
+        const val TYPE_LONG = 2
+
+        /**
+         * [valueType] of `Float` Variables.
+         */
+        const val TYPE_FLOAT = 3
+
         /**
          * Every built-in variable in declaration order. Useful for Locus-side code
          * that needs the full set without enumerating each by name (e.g. building
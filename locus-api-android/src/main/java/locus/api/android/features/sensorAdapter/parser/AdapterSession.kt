@@ -0,0 +1,90 @@
+package locus.api.android.features.sensorAdapter.parser
+
+/**
+ * State of a single bound device of [LocusParserAdapterService]. Created right before the
+ * adapter's `init` and dropped after its `shutdown`, so adapters do not keep own
+ * `deviceId → state` maps. Subclass it and return the subclass from
+ * [LocusParserAdapterService.createSession] to keep own per-device state (decoders, sample
+ * buffers, handles).
+ *
+ * Calls for one session (`parseData`, [LocusParserAdapterService.runInSession]) run serially
+ * under the session's own monitor, while sessions of other devices run concurrently on other
+ * binder threads. State of the session therefore needs no extra locking, as long as it is
+ * accessed only from these calls.
+ *
+ * @property deviceId stable instance id Locus assigned at pairing
+ * @property deviceTypeId device type from the adapter manifest XML
+ */
+open class AdapterSession(
+    val deviceId: String,
+    val deviceTypeId: String,
+) {
+
+    /**
+     * Callback for adapter-initiated writes, `null` for read-only transports. Cleared on binder
+     * threads and read on the write thread, so shutdown stops sends without any lock.
+     */
+    @Volatile
+    internal var writeChannel: ILocusSensorWriteChannel? = null
+
+    /**
+     * Scheduler of adapter-initiated writes, `null` for read-only transports.
+     */
+    var writeScheduler: AdapterWriteScheduler? = null
+        internal set
+
+    // bytes of a partial frame carried to the next data unit
+    private var pending = ByteArray(0)
+
+    /**
+     * Number of bytes in [pendingBytes].
+     */
+    var pendingSize: Int = 0
+        private set
+
+    /**
+     * Reassembly buffer with bytes of a partial frame. Only first [pendingSize] bytes are valid.
+     */
+    val pendingBytes: ByteArray
+        get() = pending
+
+    /**
+     * Append [length] bytes from [bytes] at [offset] to the reassembly buffer.
+     */
+    @JvmOverloads
+    fun appendPending(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size - offset) {
+        if (pendingSize + length > pending.size) {
+            pending = pending.copyOf(maxOf(pendingSize + length, pending.size * 2, MIN_PENDING_SIZE))
+        }
+        System.arraycopy(bytes, offset, pending, pendingSize, length)
+        pendingSize += length
+    }
+
+    /**
+     * Remove first [count] bytes (complete frames) from the reassembly buffer and keep the rest.
+     */
+    fun consumePending(count: Int) {
+        require(count in 0..pendingSize) {
+            "consumePending($count), only $pendingSize bytes are pending"
+        }
+        System.arraycopy(pending, count, pending, 0, pendingSize - count)
+        pendingSize -= count
+    }
+
+    /**
+     * Drop all bytes in the reassembly buffer.
+     */
+    fun clearPending() {
+        pendingSize = 0
+    }
+
+    override fun toString(): String {
+        return "AdapterSession($deviceId, $deviceTypeId)"
+    }
+
+    private companion object {
+
+        // minimal allocated size of the reassembly buffer
+        const val MIN_PENDING_SIZE = 256
+    }
+}
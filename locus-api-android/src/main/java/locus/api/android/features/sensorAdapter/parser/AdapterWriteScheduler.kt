@@ -0,0 +1,281 @@
+package locus.api.android.features.sensorAdapter.parser
+
+import android.os.DeadObjectException
+import android.os.Handler
+import android.os.RemoteException
+import com.asamm.loggerV2.logW
+
+/**
+ * Scheduler of adapter-initiated writes of a single [AdapterSession]. Instead of one binder
+ * transaction per write, writes wait in a queue for [coalesceWindowMs] and are then sent to
+ * Locus together over [ILocusSensorWriteChannel.writeData].
+ *
+ * - **Coalescing** — a write scheduled with `replace = true` (a poll or a set-point command)
+ *   replaces a not yet sent write to the same target, that was scheduled with `replace = true`
+ *   as well, counted in [mergedCount]. Other writes are never replaced.
+ * - **Ordering** — writes to one target are always sent in the order they were scheduled, also
+ *   when split into more transactions.
+ * - **Back-pressure** — at most [maxPendingWrites] writes wait in the queue; further writes are
+ *   rejected (and counted in [droppedCount]) until Locus catches up; writes sent directly over
+ *   [LocusParserAdapterService.writeData] are not limited. A failed transaction is
+ *   retried with increasing delay; [isBackPressured] reports both states, so adapters may lower
+ *   their poll rate.
+ *
+ * Created by [LocusParserAdapterService] for every session with a writable transport; obtain it
+ * by [AdapterSession.writeScheduler]. Thread-safe.
+ *
+ * @param session session the writes belong to
+ * @param handler handler that performs sending
+ * @param coalesceWindowMs time writes wait for others, before they are sent
+ * @param maxPendingWrites maximal number of writes waiting in the queue
+ */
+class AdapterWriteScheduler internal constructor(
+    private val session: AdapterSession,
+    private val handler: Handler,
+    private val coalesceWindowMs: Long,
+    private val maxPendingWrites: Int,
+) {
+
+    /**
+     * Write waiting for sending.
+     *
+     * @param write write itself
+     * @param replaceable `true` if write may be replaced by a newer write to the same target
+     */
+    private class PendingWrite(val write: AdapterWrite, val replaceable: Boolean)
+
+    // writes waiting for sending, in order of scheduling
+    private val pending = ArrayList<PendingWrite>()
+
+    // flag if sending is already planned
+    private var flushPlanned = false
+
+    // current delay of retry after failed transaction, 0 if last transaction succeeded
+    private var retryDelay = 0L
+
+    // flag if scheduler is closed
+    private var closed = false
+
+    /**
+     * Number of writes waiting for sending.
+     */
+    val pendingCount: Int
+        get() = synchronized(this) { pending.size }
+
+    /**
+     * Flag if Locus does not keep up: queue is full or last transaction failed.
+     */
+    val isBackPressured: Boolean
+        get() = synchronized(this) { pending.size >= maxPendingWrites || retryDelay > 0 }
+
+    /**
+     * Number of writes sent to Locus.
+     */
+    @Volatile
+    var sentCount: Long = 0L
+        private set
+
+    /**
+     * Number of binder transactions used for sending.
+     */
+    @Volatile
+    var transactionCount: Long = 0L
+        private set
+
+    /**
+     * Number of writes replaced by a newer write to the same target before sending.
+     */
+    @Volatile
+    var mergedCount: Long = 0L
+        private set
+
+    /**
+     * Number of writes rejected because of the full queue or dropped with the closed session.
+     */
+    @Volatile
+    var droppedCount: Long = 0L
+        private set
+
+    /**
+     * Schedule [write] for sending.
+     *
+     * @param write write to schedule
+     * @param replace `true` to replace a not yet sent write to the same target, if it was
+     * scheduled with `replace = true` as well
+     * @return `false` if write was rejected because of back-pressure or closed session
+     */
+    @JvmOverloads
+    fun schedule(write: AdapterWrite, replace: Boolean = false): Boolean {
+        synchronized(this) {
+            if (closed) {
+                droppedCount++
+                return false
+            }
+
+            // replace the newest pending write of the same target, if it is replaceable
+            if (replace) {
+                val index = pending.indexOfLast { it.write.target == write.target }
+                if (index >= 0 && pending[index].replaceable) {
+                    pending[index] = PendingWrite(write, true)
+                    mergedCount++
+                    return true
+                }
+            }
+
+            // reject, Locus does not keep up
+            if (pending.size >= maxPendingWrites) {
+                droppedCount++
+                return false
+            }
+            pending.add(PendingWrite(write, replace))
+            planFlush(if (retryDelay > 0) retryDelay else coalesceWindowMs)
+            return true
+        }
+    }
+
+    /**
+     * Schedule [writes] initiated directly by the adapter (e.g. a connect-time handshake) for
+     * sending as soon as possible. Such writes are not limited by [maxPendingWrites] and are
+     * never replaced.
+     *
+     * @param writes writes to schedule
+     * @return `false` if writes were rejected because of closed session
+     */
+    internal fun scheduleNow(writes: List<AdapterWrite>): Boolean {
+        synchronized(this) {
+            if (closed) {
+                droppedCount += writes.size
+                return false
+            }
+            for (write in writes) {
+                pending.add(PendingWrite(write, false))
+            }
+            flush()
+            return true
+        }
+    }
+
+    /**
+     * Send all pending writes as soon as possible, without waiting for [coalesceWindowMs].
+     */
+    fun flush() {
+        synchronized(this) {
+            if (retryDelay == 0L) {
+                handler.removeCallbacks(flushTask)
+                flushPlanned = false
+                planFlush(0L)
+            }
+        }
+    }
+
+    /**
+     * Drop all pending writes and reject further ones. Called once the session ends.
+     */
+    internal fun close() {
+        synchronized(this) {
+            closed = true
+            droppedCount += pending.size
+            pending.clear()
+            handler.removeCallbacks(flushTask)
+            flushPlanned = false
+        }
+    }
+
+    private fun planFlush(delay: Long) {
+        if (!flushPlanned && pending.isNotEmpty()) {
+            flushPlanned = true
+            handler.postDelayed(flushTask, delay)
+        }
+    }
+
+    //*************************************************
+    // SENDING
+    //*************************************************
+
+    // sending task, runs on the handler thread
+    private val flushTask = Runnable { sendPending() }
+
+    private fun sendPending() {
+        // take writes that fit into a single transaction, so writes scheduled meanwhile never
+        // replace a write that is already being sent
+        val batch = synchronized(this) {
+            flushPlanned = false
+            if (pending.isEmpty()) {
+                return
+            }
+            var bytes = 0
+            var count = 0
+            while (count < pending.size && (count == 0
+                        || bytes + pending[count].write.bytes.size <= MAX_TRANSACTION_BYTES)) {
+                bytes += pending[count].write.bytes.size
+                count++
+            }
+            val batch = ArrayList(pending.subList(0, count))
+            pending.subList(0, count).clear()
+            batch
+        }
+
+        // send outside of the lock, so scheduling is not blocked by the binder call
+        val sent = send(batch.map { it.write })
+        synchronized(this) {
+            if (closed) {
+                return
+            }
+            if (!sent) {
+                // return writes to the head of the queue and retry later
+                pending.addAll(0, batch)
+                retryDelay = (retryDelay * 2)
+                    .coerceIn(coalesceWindowMs.coerceAtLeast(MIN_RETRY_DELAY), MAX_RETRY_DELAY)
+                planFlush(retryDelay)
+                return
+            }
+            if (session.writeChannel == null) {
+                droppedCount += batch.size + pending.size
+                pending.clear()
+            } else {
+                sentCount += batch.size
+                transactionCount++
+            }
+            retryDelay = 0L
+            planFlush(0L)
+        }
+    }
+
+    /**
+     * Send [batch] to Locus.
+     *
+     * @return `false` if transaction failed and should be retried
+     */
+    private fun send(batch: List<AdapterWrite>): Boolean {
+        val channel = session.writeChannel
+            ?: return true
+        return try {
+            channel.writeData(session.deviceId, batch)
+            true
+        } catch (_: DeadObjectException) {
+            // Locus side gone — drop the dead channel and remaining writes
+            session.writeChannel = null
+            true
+        } catch (e: RemoteException) {
+            logW(tag = TAG) {
+                "send(), unable to send ${batch.size} writes to ${session.deviceId}: ${e.message}"
+            }
+            false
+        }
+    }
+
+    companion object {
+
+        // tag for logger
+        private const val TAG = "AdapterWriteScheduler"
+
+        // maximal size of writes in a single transaction, far below the binder limit
+        private const val MAX_TRANSACTION_BYTES = 64 * 1024
+
+        // first delay of retry after failed transaction
+        private const val MIN_RETRY_DELAY = 50L
+
+        // maximal delay of retry after failed transaction
+        private const val MAX_RETRY_DELAY = 2_000L
+    }
+}
@@ -0,0 +1,63 @@
+package locus.api.android.features.sensorAdapter.parser
+
+/**
+ * Framer of streams split by a delimiter byte, like NMEA or other text protocols terminated by
+ * `\n`. Frames are returned without the delimiter (and without the preceding `\r`, if
+ * [stripCarriageReturn] is set). Every buffered byte is scanned for the delimiter only once,
+ * however many chunks a frame arrives in.
+ *
+ * A frame that grows past [maxFrameLength] without the delimiter is dropped, so a garbage or
+ * not delimited stream cannot block the buffer.
+ *
+ * @param delimiter byte that terminates every frame
+ * @param maxFrameLength maximal length of a single frame
+ * @param stripCarriageReturn `true` to remove `\r` right before the delimiter
+ * @param capacity initial size of the ring buffer, grown for bigger chunks
+ */
+class DelimiterFramer @JvmOverloads constructor(
+    private val delimiter: Byte = '\n'.code.toByte(),
+    private val maxFrameLength: Int = DEFAULT_MAX_FRAME_LENGTH,
+    private val stripCarriageReturn: Boolean = true,
+    capacity: Int = DEFAULT_CAPACITY,
+) : RingBufferFramer(capacity) {
+
+    // number of buffered bytes already scanned for the delimiter
+    private var scanned = 0
+
+    override fun scanFrame(): Boolean {
+        val delimiter = delimiter.toInt() and 0xFF
+        while (scanned < size) {
+            if (byteAt(scanned) == delimiter) {
+                var length = scanned
+                if (stripCarriageReturn && length > 0 && byteAt(length - 1) == CR) {
+                    length--
+                }
+                emit(0, length, scanned + 1)
+                return true
+            }
+            scanned++
+        }
+
+        // drop too long frame
+        if (size > maxFrameLength) {
+            discard(size)
+        }
+        return false
+    }
+
+    override fun onConsumed(count: Int) {
+        scanned = (scanned - count).coerceAtLeast(0)
+    }
+
+    private companion object {
+
+        // carriage return
+        const val CR = '\r'.code
+
+        // default limit of the frame, NMEA sentence has max. 82 characters
+        const val DEFAULT_MAX_FRAME_LENGTH = 512
+
+        // default size of the ring buffer
+        const val DEFAULT_CAPACITY = 4096
+    }
+}
@@ -0,0 +1,105 @@
+package locus.api.android.features.sensorAdapter.parser
+
+/**
+ * Framer of binary streams, where every frame starts with a header that contains length of the
+ * payload (UBX, SiRF, ANT-style serial protocols). Frames are returned whole, including the
+ * header and trailer, so the adapter reads header fields and verifies checksum itself.
+ *
+ * Frame layout: `[header of headerSize bytes, with length at lengthOffset][payload][trailer]`.
+ * If [syncByte] is defined, bytes before it are dropped and a frame with invalid length is
+ * skipped byte by byte, until the next sync byte is found.
+ *
+ * @param headerSize size of the header in bytes
+ * @param lengthOffset offset of the length field in the header
+ * @param lengthSize size of the length field, 1, 2 or 4 bytes
+ * @param bigEndian `true` if length is stored in big-endian order, `false` for little-endian
+ * @param trailerSize size of the trailer (e.g. checksum) behind the payload
+ * @param lengthIncludesHeader `true` if length covers the whole frame, not just the payload
+ * @param syncByte first byte of every frame, or `-1` if frames have no sync byte
+ * @param maxFrameLength maximal length of the whole frame
+ * @param capacity initial size of the ring buffer, grown for bigger chunks
+ */
+class LengthPrefixedFramer @JvmOverloads constructor(
+    private val headerSize: Int,
+    private val lengthOffset: Int,
+    private val lengthSize: Int,
+    private val bigEndian: Boolean = true,
+    private val trailerSize: Int = 0,
+    private val lengthIncludesHeader: Boolean = false,
+    private val syncByte: Int = -1,
+    private val maxFrameLength: Int = DEFAULT_MAX_FRAME_LENGTH,
+    capacity: Int = DEFAULT_CAPACITY,
+) : RingBufferFramer(capacity) {
+
+    init {
+        require(lengthSize == 1 || lengthSize == 2 || lengthSize == 4) {
+            "LengthPrefixedFramer.lengthSize must be 1, 2 or 4"
+        }
+        require(lengthOffset >= 0 && lengthOffset + lengthSize <= headerSize) {
+            "LengthPrefixedFramer length field must be inside the header"
+        }
+        require(syncByte in -1..0xFF) {
+            "LengthPrefixedFramer.syncByte must be a byte or -1"
+        }
+    }
+
+    override fun scanFrame(): Boolean {
+        while (true) {
+            // skip bytes before the sync byte
+            if (syncByte >= 0) {
+                var skip = 0
+                while (skip < size && byteAt(skip) != syncByte) {
+                    skip++
+                }
+                discard(skip)
+            }
+            if (size < headerSize) {
+                return false
+            }
+
+            // validate length
+            val length = readLength()
+            val frameLength = if (lengthIncludesHeader) {
+                length
+            } else {
+                headerSize + length
+            } + trailerSize
+            if (length < 0 || frameLength < headerSize + trailerSize || frameLength > maxFrameLength) {
+                if (syncByte < 0) {
+                    // no way to find the next frame
+                    discard(size)
+                    return false
+                }
+                discard(1)
+                continue
+            }
+            if (size < frameLength) {
+                return false
+            }
+            emit(0, frameLength, frameLength)
+            return true
+        }
+    }
+
+    private fun readLength(): Int {
+        var length = 0L
+        for (i in 0 until lengthSize) {
+            val value = byteAt(if (bigEndian) lengthOffset + i else lengthOffset + lengthSize - 1 - i)
+            length = (length shl 8) or value.toLong()
+        }
+        return if (length > Int.MAX_VALUE - headerSize - trailerSize) {
+            -1
+        } else {
+            length.toInt()
+        }
+    }
+
+    private companion object {
+
+        // default limit of the frame
+        const val DEFAULT_MAX_FRAME_LENGTH = 4096
+
+        // default size of the ring buffer
+        const val DEFAULT_CAPACITY = 16384
+    }
+}
@@ -6,10 +6,13 @@ package locus.api.android.features.sensorAdapter.parser
 
 import android.app.Service
 import android.content.Intent
+import android.os.Handler
+import android.os.HandlerThread
 import android.os.IBinder
-import android.os.RemoteException
+import android.os.Parcel
 import locus.api.android.features.sensorAdapter.AdapterApi
 import locus.api.android.features.sensorAdapter.LocusBindContext
+import locus.api.android.utils.metrics.BinderMetrics
 import java.util.concurrent.ConcurrentHashMap
 
 /**
@@ -55,23 +58,60 @@ import java.util.concurrent.ConcurrentHashMap
 abstract class LocusParserAdapterService : Service() {
 
     /**
-     * Per-device write channels Locus handed us at `init`, keyed by `deviceId`. Used by
-     * [writeData]; a dead channel (Locus session gone) evicts itself on the next failed call.
+     * Per-device sessions, keyed by `deviceId`. Created at `init`, dropped at `shutdown`. The
+     * concurrent map locks only its own segments, so calls for different devices never wait for
+     * each other; calls for one device are serialized on its [AdapterSession] monitor.
      */
-    private val writeChannels = ConcurrentHashMap<String, ILocusSensorWriteChannel>()
+    private val sessions = ConcurrentHashMap<String, AdapterSession>()
+
+    /**
+     * Format of returned batches negotiated with Locus. Until Locus asks for the typed format,
+     * batches are converted to strings, which every Locus version reads.
+     */
+    @Volatile
+    private var batchFormat = AdapterApi.BATCH_FORMAT_STRINGS
+
+    /**
+     * Thread that sends adapter-initiated writes of all sessions, created with the first
+     * writable session.
+     */
+    private var writeThread: HandlerThread? = null
+
+    // handler of the writeThread
+    private var writeHandler: Handler? = null
 
     private val binder = object : ILocusSensorAdapterParser.Stub() {
 
+        override fun onTransact(code: Int, data: Parcel, reply: Parcel?, flags: Int): Boolean {
+            return BinderMetrics.measure(TAG, BINDER_METHODS, code, data, reply) {
+                super.onTransact(code, data, reply, flags)
+            }
+        }
+
         override fun init(
             deviceId: String,
             deviceTypeId: String,
             bindContext: LocusBindContext,
             writeChannel: ILocusSensorWriteChannel?,
         ): Int {
+            // a repeated init (e.g. after INIT_NEED_USER_ACTION) starts with a fresh session
+            val session = createSession(deviceId, deviceTypeId)
+
             // null for read-only transports; store per device so multi-device adapters address
             // the right session in writeData
-            writeChannel?.let { writeChannels[deviceId] = it }
-            return this@LocusParserAdapterService.init(deviceId, deviceTypeId, bindContext)
+            session.writeChannel = writeChannel
+            if (writeChannel != null) {
+                session.writeScheduler = AdapterWriteScheduler(
+                    session,
+                    getWriteHandler(),
+                    writeCoalesceWindowMs.coerceAtLeast(0L),
+                    maxPendingWrites.coerceAtLeast(1),
+                )
+            }
+            sessions.put(deviceId, session)?.writeScheduler?.close()
+            return synchronized(session) {
+                this@LocusParserAdapterService.init(deviceId, deviceTypeId, bindContext)
+            }
         }
 
         override fun parseData(
@@ -79,7 +119,19 @@ abstract class LocusParserAdapterService : Service() {
             source: String,
             bytes: ByteArray,
         ): SensorValueBatch? {
-            return this@LocusParserAdapterService.parseData(deviceId, source, bytes)
+            val session = sessions[deviceId]
+            val batch = if (session != null) {
+                synchronized(session) {
+                    this@LocusParserAdapterService.parseData(deviceId, source, bytes)
+                }
+            } else {
+                this@LocusParserAdapterService.parseData(deviceId, source, bytes)
+            }
+            return when {
+                batchFormat >= AdapterApi.BATCH_FORMAT_SERIES -> batch
+                batchFormat >= AdapterApi.BATCH_FORMAT_TYPED -> batch?.withoutSeries()
+                else -> batch?.toStringValues()
+            }
         }
 
         override fun getIntentForSettings(deviceId: String): Intent? {
@@ -87,19 +139,105 @@ abstract class LocusParserAdapterService : Service() {
         }
 
         override fun shutdown(deviceId: String) {
-            writeChannels.remove(deviceId)
-            this@LocusParserAdapterService.shutdown(deviceId)
+            val session = sessions[deviceId]
+            if (session == null) {
+                this@LocusParserAdapterService.shutdown(deviceId)
+                return
+            }
+            synchronized(session) {
+                session.writeScheduler?.close()
+                session.writeChannel = null
+                this@LocusParserAdapterService.shutdown(deviceId)
+            }
+            sessions.remove(deviceId, session)
+        }
+
+        override fun negotiateBatchFormat(format: Int): Int {
+            batchFormat = minOf(format, AdapterApi.BATCH_FORMAT_SERIES)
+            return batchFormat
         }
     }
 
+    /**
+     * Time adapter-initiated writes wait for other writes, before they are sent to Locus in a
+     * single transaction. See [AdapterWriteScheduler].
+     */
+    protected open val writeCoalesceWindowMs: Long
+        get() = DEFAULT_WRITE_COALESCE_WINDOW
+
+    /**
+     * Maximal number of adapter-initiated writes of one device waiting for sending. Further
+     * writes are rejected until Locus catches up. See [AdapterWriteScheduler].
+     */
+    protected open val maxPendingWrites: Int
+        get() = DEFAULT_MAX_PENDING_WRITES
+
     final override fun onBind(intent: Intent): IBinder {
         return binder
     }
 
+    override fun onDestroy() {
+        super.onDestroy()
+        for (session in sessions.values) {
+            session.writeScheduler?.close()
+        }
+        sessions.clear()
+        synchronized(this) {
+            writeThread?.quit()
+            writeThread = null
+            writeHandler = null
+        }
+    }
+
+    private fun getWriteHandler(): Handler {
+        synchronized(this) {
+            var handler = writeHandler
+            if (handler == null) {
+                val thread = HandlerThread("LocusAdapterWrites").apply { start() }
+                handler = Handler(thread.looper)
+                writeThread = thread
+                writeHandler = handler
+            }
+            return handler
+        }
+    }
+
+    /**
+     * Create the session of a newly bound device, right before [init]. Override to return own
+     * [AdapterSession] subclass with per-device state; obtain it later by [getSession].
+     */
+    protected open fun createSession(deviceId: String, deviceTypeId: String): AdapterSession {
+        return AdapterSession(deviceId, deviceTypeId)
+    }
+
+    /**
+     * Session of [deviceId] created by [createSession], or `null` if the device is not bound.
+     * Access its state from [init], [parseData], [shutdown] or [runInSession] only; these run
+     * serially for one device.
+     */
+    @Suppress("UNCHECKED_CAST")
+    protected fun <S : AdapterSession> getSession(deviceId: String): S? {
+        return sessions[deviceId] as S?
+    }
+
+    /**
+     * Run [action] serially with other calls of [deviceId]'s session — for work started outside
+     * of binder calls (timers, adapter-initiated polls). Returns `null` without running [action]
+     * if the device is not bound.
+     */
+    protected fun <S : AdapterSession, R> runInSession(deviceId: String, action: (S) -> R): R? {
+        val session = getSession<S>(deviceId)
+            ?: return null
+        return synchronized(session) {
+            action(session)
+        }
+    }
+
     /**
      * Negotiate startup for one bound device. See [ILocusSensorAdapterParser.init]. Return one of
-     * the [AdapterApi] `INIT_*` constants. Keep a `deviceId → deviceTypeId` mapping here if you
-     * need the type in later [parseData] calls (they carry only `deviceId`).
+     * the [AdapterApi] `INIT_*` constants. The device's [AdapterSession] (with its
+     * `deviceTypeId`) is already created, so later [parseData] calls (they carry only `deviceId`)
+     * find it by [getSession].
      *
      * The write channel (if the transport is writable) is already stored by the time this runs, so
      * an adapter may call [writeData] from here for a connect-time handshake.
@@ -113,7 +251,9 @@ abstract class LocusParserAdapterService : Service() {
     /**
      * Parse one inbound data unit — a GATT frame (BT4) or a byte-stream chunk (BT3 / USB / NET).
      * Return `null` if consumed without producing values (e.g. partial frame buffered for
-     * reassembly). See [ILocusSensorAdapterParser.parseData].
+     * reassembly in [AdapterSession.appendPending]). Runs serially for one device, concurrently
+     * for different ones. See [ILocusSensorAdapterParser.parseData]. High-rate sensors return every
+     * decoded sample over a per-device [SensorSampleBuffer] instead of only the newest one.
      */
     protected abstract fun parseData(
         deviceId: String,
@@ -126,18 +266,37 @@ abstract class LocusParserAdapterService : Service() {
      * periodic poll, or an event-driven command. Complements returning `writeBacks` from a
      * [parseData] batch (the reactive path). No-op when the device's transport is read-only or its
      * session has ended.
+     *
+     * Writes are sent as soon as possible, after writes queued by [scheduleWrite] before, so the
+     * order of writes to one target is kept. Unlike [scheduleWrite], they are not limited by
+     * [maxPendingWrites], so a handshake is never rejected because of back-pressure.
+     *
+     * @return `false` if writes were not sent — transport is read-only or session has ended
      */
-    protected fun writeData(deviceId: String, writes: List<AdapterWrite>) {
+    protected fun writeData(deviceId: String, writes: List<AdapterWrite>): Boolean {
         if (writes.isEmpty()) {
-            return
-        }
-        val channel = writeChannels[deviceId] ?: return
-        try {
-            channel.writeData(deviceId, writes)
-        } catch (_: RemoteException) {
-            // Locus side gone — drop the dead channel
-            writeChannels.remove(deviceId)
+            return true
         }
+        val scheduler = sessions[deviceId]?.writeScheduler ?: return false
+        return scheduler.scheduleNow(writes)
+    }
+
+    /**
+     * Queue a write to [deviceId] for sending within [writeCoalesceWindowMs], together with other
+     * queued writes in a single transaction. Use for high-rate polls and control commands; with
+     * [replace], a not yet sent write to the same target is replaced (e.g. a newer set-point).
+     *
+     * @return `false` if write was rejected — transport is read-only, session has ended or Locus
+     * does not keep up (see [AdapterWriteScheduler.isBackPressured])
+     */
+    @JvmOverloads
+    protected fun scheduleWrite(
+        deviceId: String,
+        write: AdapterWrite,
+        replace: Boolean = false,
+    ): Boolean {
+        val scheduler = sessions[deviceId]?.writeScheduler ?: return false
+        return scheduler.schedule(write, replace)
     }
 
     /**
@@ -151,14 +310,28 @@ abstract class LocusParserAdapterService : Service() {
 
     /**
      * Tear down per-pairing state for [deviceId]. See [ILocusSensorAdapterParser.shutdown]. The base
-     * class already drops [deviceId]'s write channel before this runs; override to release your own
-     * per-device state (parsers, buffers, handles). Default is a no-op.
+     * class already drops [deviceId]'s write channel before this runs and drops its [AdapterSession]
+     * after; override to release handles held outside of the session. Default is a no-op.
      */
     protected open fun shutdown(deviceId: String) {
     }
 
     companion object {
 
+        // tag for logger
+        private const val TAG = "LocusParserAdapterService"
+
+        // names of ILocusSensorAdapterParser methods in order of declaration, for BinderMetrics
+        private val BINDER_METHODS = arrayOf(
+            "init", "parseData", "getIntentForSettings", "shutdown", "negotiateBatchFormat"
+        )
+
+        // default time writes wait for other writes
+        private const val DEFAULT_WRITE_COALESCE_WINDOW = 20L
+
+        // default limit of writes waiting for sending
+        private const val DEFAULT_MAX_PENDING_WRITES = 64
+
         /**
          * Intent-filter action adapter apps declare on their service so Locus can
          * discover them via `PackageManager.queryIntentServices`.
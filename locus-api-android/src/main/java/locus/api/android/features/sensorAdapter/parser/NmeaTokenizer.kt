@@ -0,0 +1,314 @@
+package locus.api.android.features.sensorAdapter.parser
+
+import kotlin.math.pow
+
+/**
+ * Tokenizer of NMEA 0183 sentences that works directly on byte offsets of a frame (usually from
+ * [DelimiterFramer]), without creating any `String`. [parse] verifies the `*hh` checksum and
+ * remembers offsets of all comma separated fields; values are then read per field index.
+ * Field `0` is the address (e.g. `GPRMC`, without `$`).
+ *
+ * Typical usage:
+ * ```
+ * if (tokenizer.parse(framer.frameArray, framer.frameOffset, framer.frameLength)
+ *     && tokenizer.fieldEndsWith(0, "RMC")
+ *     && tokenizer.fieldEquals(2, "A")) {
+ *     val knots = tokenizer.getFloat(7)
+ * }
+ * ```
+ *
+ * Instance is reused for every sentence and is not thread-safe.
+ *
+ * @param requireChecksum `true` to reject sentences without the checksum
+ */
+class NmeaTokenizer @JvmOverloads constructor(
+    private val requireChecksum: Boolean = false,
+) {
+
+    // parsed sentence
+    private var data = ByteArray(0)
+
+    // start offsets of fields
+    private var starts = IntArray(INITIAL_FIELDS)
+
+    // end offsets (exclusive) of fields
+    private var ends = IntArray(INITIAL_FIELDS)
+
+    /**
+     * Number of fields of the last parsed sentence.
+     */
+    var fieldCount: Int = 0
+        private set
+
+    /**
+     * Parse a single sentence. Leading and trailing whitespace is ignored.
+     *
+     * @param bytes array with the sentence
+     * @param offset offset of the sentence in [bytes]
+     * @param length length of the sentence
+     * @return `true` if sentence is valid, `false` if it does not start with `$` / `!` or has
+     * invalid checksum
+     */
+    @JvmOverloads
+    fun parse(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size - offset): Boolean {
+        fieldCount = 0
+        var start = offset
+        var end = offset + length
+        while (start < end && bytes[start] <= SPACE) {
+            start++
+        }
+        while (end > start && bytes[end - 1] <= SPACE) {
+            end--
+        }
+        if (start >= end || (bytes[start] != DOLLAR && bytes[start] != EXCLAMATION)) {
+            return false
+        }
+        start++
+
+        // verify checksum
+        var checksum = 0
+        var bodyEnd = start
+        while (bodyEnd < end && bytes[bodyEnd] != ASTERISK) {
+            checksum = checksum xor bytes[bodyEnd].toInt()
+            bodyEnd++
+        }
+        if (bodyEnd < end) {
+            if (end - bodyEnd != 3) {
+                return false
+            }
+            val high = hexValue(bytes[bodyEnd + 1])
+            val low = hexValue(bytes[bodyEnd + 2])
+            if (high < 0 || low < 0 || (high shl 4 or low) != (checksum and 0xFF)) {
+                return false
+            }
+        } else if (requireChecksum) {
+            return false
+        }
+
+        // split fields
+        data = bytes
+        var fieldStart = start
+        for (i in start..bodyEnd) {
+            if (i == bodyEnd || bytes[i] == COMMA) {
+                addField(fieldStart, i)
+                fieldStart = i + 1
+            }
+        }
+        return true
+    }
+
+    private fun addField(start: Int, end: Int) {
+        if (fieldCount == starts.size) {
+            starts = starts.copyOf(fieldCount * 2)
+            ends = ends.copyOf(fieldCount * 2)
+        }
+        starts[fieldCount] = start
+        ends[fieldCount] = end
+        fieldCount++
+    }
+
+    //*************************************************
+    // FIELDS
+    //*************************************************
+
+    /**
+     * Length of field [index] in bytes, `0` for empty or missing field.
+     */
+    fun getFieldLength(index: Int): Int {
+        return if (index in 0 until fieldCount) {
+            ends[index] - starts[index]
+        } else {
+            0
+        }
+    }
+
+    /**
+     * Check if field [index] is empty or missing.
+     */
+    fun isFieldEmpty(index: Int): Boolean {
+        return getFieldLength(index) == 0
+    }
+
+    /**
+     * Check if field [index] is equal to the ASCII [text].
+     */
+    fun fieldEquals(index: Int, text: String): Boolean {
+        return getFieldLength(index) == text.length
+                && regionEquals(starts[index], text)
+    }
+
+    /**
+     * Check if field [index] starts with the ASCII [text].
+     */
+    fun fieldStartsWith(index: Int, text: String): Boolean {
+        return getFieldLength(index) >= text.length
+                && regionEquals(starts[index], text)
+    }
+
+    /**
+     * Check if field [index] ends with the ASCII [text], e.g. the sentence type without talker ID.
+     */
+    fun fieldEndsWith(index: Int, text: String): Boolean {
+        return getFieldLength(index) >= text.length
+                && regionEquals(ends[index] - text.length, text)
+    }
+
+    private fun regionEquals(from: Int, text: String): Boolean {
+        for (i in text.indices) {
+            if (data[from + i].toInt() != text[i].code) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /**
+     * First character of field [index], or [default] if field is empty.
+     */
+    @JvmOverloads
+    fun getChar(index: Int, default: Char = ' '): Char {
+        return if (isFieldEmpty(index)) {
+            default
+        } else {
+            (data[starts[index]].toInt() and 0xFF).toChar()
+        }
+    }
+
+    /**
+     * Integer value of field [index], or [default] if field is empty or invalid.
+     */
+    @JvmOverloads
+    fun getInt(index: Int, default: Int = 0): Int {
+        if (isFieldEmpty(index)) {
+            return default
+        }
+        var i = starts[index]
+        val end = ends[index]
+        val negative = data[i] == MINUS
+        if (negative || data[i] == PLUS) {
+            i++
+        }
+        if (i == end) {
+            return default
+        }
+        var value = 0L
+        while (i < end) {
+            val digit = data[i] - ZERO
+            if (digit !in 0..9) {
+                return default
+            }
+            value = value * 10 + digit
+            if (value > Int.MAX_VALUE) {
+                return default
+            }
+            i++
+        }
+        return if (negative) -value.toInt() else value.toInt()
+    }
+
+    /**
+     * Decimal value of field [index], or `NaN` if field is empty or invalid.
+     */
+    fun getDouble(index: Int): Double {
+        if (isFieldEmpty(index)) {
+            return Double.NaN
+        }
+        var i = starts[index]
+        val end = ends[index]
+        val negative = data[i] == MINUS
+        if (negative || data[i] == PLUS) {
+            i++
+        }
+        var mantissa = 0L
+        var scale = 0
+        var digits = 0
+        var dot = false
+        while (i < end) {
+            val b = data[i]
+            if (b == DOT && !dot) {
+                dot = true
+            } else {
+                val digit = b - ZERO
+                if (digit !in 0..9) {
+                    return Double.NaN
+                }
+                // digits over the precision of Long are ignored
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + digit
+                    digits++
+                    if (dot) {
+                        scale++
+                    }
+                } else if (!dot) {
+                    scale--
+                }
+            }
+            i++
+        }
+        if (digits == 0) {
+            return Double.NaN
+        }
+        val value = if (scale >= 0) {
+            mantissa / POWERS_OF_TEN[scale]
+        } else {
+            mantissa * 10.0.pow(-scale)
+        }
+        return if (negative) -value else value
+    }
+
+    /**
+     * Decimal value of field [index], or `NaN` if field is empty or invalid.
+     */
+    fun getFloat(index: Int): Float {
+        return getDouble(index).toFloat()
+    }
+
+    companion object {
+
+        // parsed bytes
+        private const val SPACE = ' '.code.toByte()
+        private const val DOLLAR = '$'.code.toByte()
+        private const val EXCLAMATION = '!'.code.toByte()
+        private const val ASTERISK = '*'.code.toByte()
+        private const val COMMA = ','.code.toByte()
+        private const val MINUS = '-'.code.toByte()
+        private const val PLUS = '+'.code.toByte()
+        private const val DOT = '.'.code.toByte()
+        private const val ZERO = '0'.code.toByte()
+
+        // initial capacity of fields, enough for most of sentences
+        private const val INITIAL_FIELDS = 24
+
+        // maximal number of significant digits of decimal values
+        private const val MAX_DIGITS = 18
+
+        // powers of ten for scaling of decimal values
+        private val POWERS_OF_TEN = DoubleArray(MAX_DIGITS + 1) { i ->
+            var value = 1.0
+            repeat(i) { value *= 10.0 }
+            value
+        }
+
+        /**
+         * Compute the NMEA checksum (XOR of all bytes) of [length] bytes at [offset]; pass the
+         * sentence without leading `$` and without `*hh`.
+         */
+        @JvmStatic
+        fun checksum(bytes: ByteArray, offset: Int, length: Int): Int {
+            var checksum = 0
+            for (i in offset until offset + length) {
+                checksum = checksum xor bytes[i].toInt()
+            }
+            return checksum and 0xFF
+        }
+
+        private fun hexValue(b: Byte): Int {
+            return when (b.toInt().toChar()) {
+                in '0'..'9' -> b - '0'.code.toByte()
+                in 'A'..'F' -> b - 'A'.code.toByte() + 10
+                in 'a'..'f' -> b - 'a'.code.toByte() + 10
+                else -> -1
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package locus.api.android.features.sensorAdapter.parser
+
+/**
+ * Base of frame reassembly for byte-stream transports (BT3 / USB / NET), where one
+ * [LocusParserAdapterService.parseData] call carries any part of the stream: a partial frame,
+ * exactly one, or several.
+ *
+ * Received chunks are [append]ed into a ring buffer, without allocation while they fit. A chunk
+ * bigger than the free space grows the ring (up to 16 MB), so no buffered frame is lost before
+ * [nextFrame] returns it; only invalid or too long frames are dropped by the implementation.
+ * [nextFrame] then returns complete frames one by one. A frame is exposed as a range of [frameArray]: usually
+ * directly the ring buffer, only a frame that wraps around the end of the ring is copied into
+ * a reusable scratch array. The range is valid until the next [append] or [nextFrame] call.
+ *
+ * Typical usage:
+ * ```
+ * framer.append(bytes)
+ * while (framer.nextFrame()) {
+ *     decode(framer.frameArray, framer.frameOffset, framer.frameLength)
+ * }
+ * ```
+ *
+ * Not thread-safe; keep one framer per device, e.g. in its [AdapterSession].
+ *
+ * @param capacity initial size of the ring buffer, rounded up to the power of two
+ */
+abstract class RingBufferFramer(capacity: Int) {
+
+    // buffered bytes
+    private var ring: ByteArray
+
+    // mask of index into the ring
+    private var mask: Int
+
+    // index of the first buffered byte
+    private var head = 0
+
+    // scratch array for frames wrapped around the end of the ring
+    private var scratch = ByteArray(0)
+
+    init {
+        require(capacity in 1..MAX_CAPACITY) {
+            "RingBufferFramer.capacity must be in 1..$MAX_CAPACITY"
+        }
+        ring = ByteArray(Integer.highestOneBit(capacity - 1).coerceAtLeast(1) shl 1)
+        mask = ring.size - 1
+    }
+
+    /**
+     * Number of buffered bytes not yet returned in frames.
+     */
+    var size: Int = 0
+        private set
+
+    /**
+     * Number of bytes dropped so far, because of buffer overflow or invalid data.
+     */
+    var droppedBytes: Long = 0L
+        private set
+
+    /**
+     * Array with the current frame.
+     */
+    var frameArray: ByteArray = ring
+        private set
+
+    /**
+     * Offset of the current frame in [frameArray].
+     */
+    var frameOffset: Int = 0
+        private set
+
+    /**
+     * Length of the current frame.
+     */
+    var frameLength: Int = 0
+        private set
+
+    /**
+     * Append [length] bytes from [bytes] at [offset]. The ring buffer grows if data do not fit
+     * into it; the oldest buffered bytes are dropped only once it reaches its maximal size.
+     */
+    @JvmOverloads
+    fun append(bytes: ByteArray, offset: Int = 0, length: Int = bytes.size - offset) {
+        var from = offset
+        var count = length
+
+        // grow the ring, so buffered frames are kept
+        if (size + count > ring.size && ring.size < MAX_CAPACITY) {
+            grow(size + count)
+        }
+
+        // keep only the newest data that fit into the ring
+        if (count > ring.size) {
+            discard(size)
+            droppedBytes += count - ring.size
+            from += count - ring.size
+            count = ring.size
+        }
+        if (size + count > ring.size) {
+            discard(size + count - ring.size)
+        }
+
+        // copy in at most two parts
+        val tail = (head + size) and mask
+        val first = minOf(count, ring.size - tail)
+        System.arraycopy(bytes, from, ring, tail, first)
+        System.arraycopy(bytes, from + first, ring, 0, count - first)
+        size += count
+    }
+
+    /**
+     * Find the next complete frame in buffered bytes.
+     *
+     * @return `true` if frame is available in [frameArray], `false` if more data are needed
+     */
+    fun nextFrame(): Boolean {
+        return scanFrame()
+    }
+
+    /**
+     * Drop all buffered bytes.
+     */
+    fun clear() {
+        head = 0
+        size = 0
+        onConsumed(Int.MAX_VALUE)
+    }
+
+    //*************************************************
+    // FRAMING
+    //*************************************************
+
+    /**
+     * Find the next frame in buffered bytes. Implementation either calls [emit] and returns
+     * `true`, or returns `false` if more data are needed. Invalid bytes are dropped by [discard].
+     */
+    protected abstract fun scanFrame(): Boolean
+
+    /**
+     * Called once first [count] buffered bytes are consumed, so implementation may shift own
+     * indices into the buffer.
+     */
+    protected open fun onConsumed(count: Int) {
+    }
+
+    /**
+     * Unsigned byte at [index] from the first buffered byte.
+     */
+    protected fun byteAt(index: Int): Int {
+        return ring[(head + index) and mask].toInt() and 0xFF
+    }
+
+    /**
+     * Drop first [count] buffered bytes as invalid.
+     */
+    protected fun discard(count: Int) {
+        if (count <= 0) {
+            return
+        }
+        consume(count)
+        droppedBytes += count
+    }
+
+    /**
+     * Expose [length] bytes at [start] from the first buffered byte as the current frame and
+     * consume first [consumed] buffered bytes.
+     */
+    protected fun emit(start: Int, length: Int, consumed: Int) {
+        val from = (head + start) and mask
+        if (from + length <= ring.size) {
+            frameArray = ring
+            frameOffset = from
+        } else {
+            // frame wraps around the end of the ring
+            if (scratch.size < length) {
+                scratch = ByteArray(length)
+            }
+            val first = ring.size - from
+            System.arraycopy(ring, from, scratch, 0, first)
+            System.arraycopy(ring, 0, scratch, first, length - first)
+            frameArray = scratch
+            frameOffset = 0
+        }
+        frameLength = length
+        consume(consumed)
+    }
+
+    private fun grow(required: Int) {
+        val capacity = if (required >= MAX_CAPACITY) {
+            MAX_CAPACITY
+        } else {
+            Integer.highestOneBit(required - 1) shl 1
+        }
+        val grown = ByteArray(capacity)
+        val first = minOf(size, ring.size - head)
+        System.arraycopy(ring, head, grown, 0, first)
+        System.arraycopy(ring, 0, grown, first, size - first)
+        ring = grown
+        mask = capacity - 1
+        head = 0
+    }
+
+    private fun consume(count: Int) {
+        head = (head + count) and mask
+        size -= count
+        onConsumed(count)
+    }
+
+    private companion object {
+
+        // maximal size of the ring buffer
+        const val MAX_CAPACITY = 1 shl 24
+    }
+}
@@ -0,0 +1,258 @@
+package locus.api.android.features.sensorAdapter.parser
+
+import locus.api.android.features.sensorAdapter.AdapterApi
+import locus.api.android.features.sensorAdapter.LocusVariable
+
+/**
+ * Adapter-side buffer that coalesces samples of high-rate sensors into a single
+ * [SensorValueBatch] with the time-series block in [SensorValueBatch.series]
+ * ([AdapterApi.BATCH_FORMAT_SERIES]).
+ *
+ * Every decoded reading starts a new sample by [addSample] and fills its values by [put].
+ * [flushIfDue] then returns the batch once [flushIntervalMs] passed since the oldest buffered
+ * sample was added (or [maxSamples] is reached) and `null` otherwise, so
+ * [LocusParserAdapterService.parseData] may return its result directly. The interval is measured
+ * by the arrival time of samples, not by their timestamps, so samples stamped by other clock
+ * (e.g. GNSS fix time) are not held back when the device clock differs. Use `0` as
+ * [flushIntervalMs] to return every sample decoded from one chunk in one batch, without any delay.
+ *
+ * The flushed batch carries in `typedValues` also the newest value of every variable, so Locus
+ * versions that do not read the series still get the current state.
+ *
+ * Typical usage:
+ * ```
+ * for (reading in decode(bytes)) {
+ *     buffer.addSample(reading.time)
+ *         .put(LocusVariable.Speed, reading.speed)
+ * }
+ * return buffer.flushIfDue()
+ * ```
+ *
+ * Samples reach Locus only as a result of [LocusParserAdapterService.parseData], so samples
+ * buffered when the stream stops are never delivered; at most [flushIntervalMs] of the newest
+ * readings is lost this way. Keep the interval short and drop the buffer at `shutdown`.
+ *
+ * Not thread-safe; keep one buffer per device and access it under the same lock as other
+ * per-device state.
+ *
+ * @param flushIntervalMs minimal time since arrival of the oldest sample to return the batch
+ * @param maxSamples number of samples after which batch is returned regardless of [flushIntervalMs]
+ */
+class SensorSampleBuffer @JvmOverloads constructor(
+    private val flushIntervalMs: Long,
+    private val maxSamples: Int = DEFAULT_MAX_SAMPLES,
+) {
+
+    // timestamps of samples
+    private var timestamps = LongArray(INITIAL_SAMPLES)
+
+    // index of the first value of every sample
+    private var sampleStarts = IntArray(INITIAL_SAMPLES)
+
+    // number of buffered samples
+    private var sampleCount = 0
+
+    // time the oldest buffered sample was added, in the clock of `flushIfDue`
+    private var firstAddedAt = 0L
+
+    // values of all samples in parallel arrays, see SensorTypedValues
+    private var refIds = IntArray(INITIAL_VALUES)
+    private var types = ByteArray(INITIAL_VALUES)
+    private var values = LongArray(INITIAL_VALUES)
+    private var valueCount = 0
+
+    init {
+        require(flushIntervalMs >= 0) {
+            "SensorSampleBuffer.flushIntervalMs must not be negative"
+        }
+        require(maxSamples > 0) {
+            "SensorSampleBuffer.maxSamples must be positive"
+        }
+    }
+
+    /**
+     * Flag if no sample is buffered.
+     */
+    val isEmpty: Boolean
+        get() = sampleCount == 0
+
+    /**
+     * Start a new sample. Values set by [put] from now on belong to this sample.
+     *
+     * @param timestamp time of the sample, ms since epoch
+     * @param now current time, in the same clock as `now` of [flushIfDue]
+     */
+    @JvmOverloads
+    fun addSample(
+        timestamp: Long,
+        now: Long = System.currentTimeMillis(),
+    ): SensorSampleBuffer {
+        if (sampleCount == 0) {
+            firstAddedAt = now
+        }
+        if (sampleCount == timestamps.size) {
+            val capacity = sampleCount * 2
+            timestamps = timestamps.copyOf(capacity)
+            sampleStarts = sampleStarts.copyOf(capacity)
+        }
+        timestamps[sampleCount] = timestamp
+        sampleStarts[sampleCount] = valueCount
+        sampleCount++
+        return this
+    }
+
+    /**
+     * Set the `Int` value of [variable] in the current sample.
+     */
+    fun put(variable: LocusVariable<Int>, value: Int): SensorSampleBuffer {
+        putRaw(variable, value.toLong())
+        return this
+    }
+
+    /**
+     * Set the `Long` value of [variable] in the current sample.
+     */
+    fun put(variable: LocusVariable<Long>, value: Long): SensorSampleBuffer {
+        putRaw(variable, value)
+        return this
+    }
+
+    /**
+     * Set the `Float` value of [variable] in the current sample.
+     */
+    fun put(variable: LocusVariable<Float>, value: Float): SensorSampleBuffer {
+        putRaw(variable, value.toRawBits().toLong())
+        return this
+    }
+
+    private fun putRaw(variable: LocusVariable<*>, raw: Long) {
+        check(sampleCount > 0) {
+            "SensorSampleBuffer.addSample() has to be called before put()"
+        }
+        require(variable.valueType != LocusVariable.TYPE_STRING) {
+            "SensorSampleBuffer accepts numeric values only, not ${variable.xmlName}"
+        }
+
+        // last write wins within the current sample
+        for (i in sampleStarts[sampleCount - 1] until valueCount) {
+            if (refIds[i] == variable.refId) {
+                values[i] = raw
+                return
+            }
+        }
+
+        // append new value
+        if (valueCount == refIds.size) {
+            val capacity = valueCount * 2
+            refIds = refIds.copyOf(capacity)
+            types = types.copyOf(capacity)
+            values = values.copyOf(capacity)
+        }
+        refIds[valueCount] = variable.refId
+        types[valueCount] = variable.valueType.toByte()
+        values[valueCount] = raw
+        valueCount++
+    }
+
+    /**
+     * Return buffered samples if [flushIntervalMs] passed since the oldest of them was added or
+     * [maxSamples] is reached.
+     *
+     * @param now current time, in the same clock as `now` of [addSample]
+     * @return batch with buffered samples or `null` if not yet due
+     */
+    @JvmOverloads
+    fun flushIfDue(now: Long = System.currentTimeMillis()): SensorValueBatch? {
+        if (sampleCount == 0) {
+            return null
+        }
+        return if (sampleCount >= maxSamples || now - firstAddedAt >= flushIntervalMs) {
+            flush()
+        } else {
+            null
+        }
+    }
+
+    /**
+     * Return all buffered samples, regardless of the flush interval, and clear the buffer.
+     *
+     * @return batch with buffered samples or `null` if buffer is empty
+     */
+    fun flush(): SensorValueBatch? {
+        if (sampleCount == 0) {
+            return null
+        }
+        val offsets = sampleStarts.copyOf(sampleCount + 1)
+        offsets[sampleCount] = valueCount
+        val series = SensorValueSeries(
+            timestamps = timestamps.copyOf(sampleCount),
+            sampleOffsets = offsets,
+            values = SensorTypedValues(
+                refIds.copyOf(valueCount),
+                types.copyOf(valueCount),
+                values.copyOf(valueCount),
+            ),
+        )
+        val batch = SensorValueBatch(
+            timestamp = timestamps[sampleCount - 1],
+            typedValues = newestValues(),
+            series = series,
+        )
+        clear()
+        return batch
+    }
+
+    /**
+     * Drop all buffered samples.
+     */
+    fun clear() {
+        sampleCount = 0
+        valueCount = 0
+    }
+
+    /**
+     * Newest value of every variable in buffered samples.
+     */
+    private fun newestValues(): SensorTypedValues? {
+        if (valueCount == 0) {
+            return null
+        }
+        val newestIds = IntArray(valueCount)
+        val newestTypes = ByteArray(valueCount)
+        val newestValues = LongArray(valueCount)
+        var count = 0
+        for (i in valueCount - 1 downTo 0) {
+            val refId = refIds[i]
+            var known = false
+            for (j in 0 until count) {
+                if (newestIds[j] == refId) {
+                    known = true
+                    break
+                }
+            }
+            if (!known) {
+                newestIds[count] = refId
+                newestTypes[count] = types[i]
+                newestValues[count] = values[i]
+                count++
+            }
+        }
+        return SensorTypedValues(
+            newestIds.copyOf(count),
+            newestTypes.copyOf(count),
+            newestValues.copyOf(count),
+        )
+    }
+
+    private companion object {
+
+        // default limit of samples in one batch, keeps the parcel far below binder limits
+        const val DEFAULT_MAX_SAMPLES = 512
+
+        // initial capacity of samples
+        const val INITIAL_SAMPLES = 16
+
+        // initial capacity of values of all samples
+        const val INITIAL_VALUES = 32
+    }
+}
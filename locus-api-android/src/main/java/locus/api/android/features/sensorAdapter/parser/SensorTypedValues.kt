@@ -0,0 +1,104 @@
+package locus.api.android.features.sensorAdapter.parser
+
+import android.os.Parcelable
+import kotlinx.parcelize.Parcelize
+import locus.api.android.features.sensorAdapter.AdapterApi
+import locus.api.android.features.sensorAdapter.LocusVariable
+
+/**
+ * Numeric values of [SensorValueBatch] in the typed form ([AdapterApi.BATCH_FORMAT_TYPED]).
+ * Three parallel arrays — refId, [LocusVariable] `TYPE_*` tag and the raw primitive value (see
+ * [LocusVariable.toRaw]) — parcelled as they are, so neither side formats or parses strings.
+ *
+ * Not a `data class`: the explicit `equals`/`hashCode` compare arrays by content, not identity.
+ *
+ * @property refIds refIds of values
+ * @property types [LocusVariable] `TYPE_*` tag of every value
+ * @property values raw primitive values
+ */
+@Parcelize
+class SensorTypedValues(
+    val refIds: IntArray,
+    val types: ByteArray,
+    val values: LongArray,
+) : Parcelable {
+
+    init {
+        require(refIds.size == types.size && refIds.size == values.size) {
+            "SensorTypedValues arrays must have the same size"
+        }
+    }
+
+    /**
+     * Number of values.
+     */
+    val size: Int
+        get() = refIds.size
+
+    /**
+     * Value at [index] as `Int`, for [LocusVariable.TYPE_INT] values.
+     */
+    fun getInt(index: Int): Int {
+        return values[index].toInt()
+    }
+
+    /**
+     * Value at [index] as `Long`, for [LocusVariable.TYPE_LONG] values.
+     */
+    fun getLong(index: Int): Long {
+        return values[index]
+    }
+
+    /**
+     * Value at [index] as `Float`, for [LocusVariable.TYPE_FLOAT] values.
+     */
+    fun getFloat(index: Int): Float {
+        return Float.fromBits(values[index].toInt())
+    }
+
+    /**
+     * Value of [variable] or `null` if not present in this batch.
+     */
+    fun <T : Any> get(variable: LocusVariable<T>): T? {
+        val index = refIds.indexOf(variable.refId)
+        return if (index >= 0) {
+            variable.fromRaw(values[index])
+        } else {
+            null
+        }
+    }
+
+    /**
+     * Value at [index] in the locale-independent string form of [SensorValueBatch.values].
+     */
+    fun getAsString(index: Int): String {
+        return when (types[index].toInt()) {
+            LocusVariable.TYPE_INT -> getInt(index).toString()
+            LocusVariable.TYPE_FLOAT -> getFloat(index).toString()
+            else -> getLong(index).toString()
+        }
+    }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        if (other !is SensorTypedValues) {
+            return false
+        }
+        return refIds.contentEquals(other.refIds)
+                && types.contentEquals(other.types)
+                && values.contentEquals(other.values)
+    }
+
+    override fun hashCode(): Int {
+        var result = refIds.contentHashCode()
+        result = 31 * result + types.contentHashCode()
+        result = 31 * result + values.contentHashCode()
+        return result
+    }
+
+    override fun toString(): String {
+        return "SensorTypedValues(size=$size)"
+    }
+}
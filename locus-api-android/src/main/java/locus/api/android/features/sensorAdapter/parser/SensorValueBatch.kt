@@ -17,15 +17,51 @@ import kotlinx.parcelize.Parcelize
  *
  * Build via [SensorValueBatchBuilder] for the compile-time refId-to-`T` checks; direct
  * construction works but skips them. Values ride the wire as locale-independent strings (full
- * precision for `Int`/`Long`/`String`, shortest-decimal round-trip for `Float`).
+ * precision for `Int`/`Long`/`String`, shortest-decimal round-trip for `Float`) in [values], or,
+ * once Locus negotiates [AdapterApi.BATCH_FORMAT_TYPED], numeric values ride as primitive arrays
+ * in [typedValues]. With [AdapterApi.BATCH_FORMAT_SERIES], [series] additionally carries every
+ * sample of a high-rate sensor with its own timestamp (see [SensorSampleBuffer]). New fields are
+ * appended at the end of the parcel, so older Locus versions ignore them and batches from older
+ * adapters read them as `null`.
  *
  * @property timestamp when the frame was received, ms since epoch — covers every value in the batch
  * @property values refId → stringified value
  * @property writeBacks write-backs Locus performs on the device after applying this batch
+ * @property typedValues numeric values in the typed form, `null` if not used
+ * @property series samples with own timestamps, `null` if not used
  */
 @Parcelize
 data class SensorValueBatch(
     val timestamp: Long,
     val values: Map<Int, String> = emptyMap(),
     val writeBacks: List<AdapterWrite> = emptyList(),
-) : Parcelable
+    val typedValues: SensorTypedValues? = null,
+    val series: SensorValueSeries? = null,
+) : Parcelable {
+
+    /**
+     * Convert to the batch with all values in the string form ([AdapterApi.BATCH_FORMAT_STRINGS]),
+     * for Locus versions that do not read [typedValues]. [series] is dropped.
+     */
+    fun toStringValues(): SensorValueBatch {
+        val typed = typedValues
+            ?: return withoutSeries()
+        val merged = HashMap<Int, String>(values.size + typed.size)
+        for (i in 0 until typed.size) {
+            merged[typed.refIds[i]] = typed.getAsString(i)
+        }
+        merged.putAll(values)
+        return SensorValueBatch(timestamp, merged, writeBacks)
+    }
+
+    /**
+     * Return the batch without [series], for Locus versions that do not read it.
+     */
+    fun withoutSeries(): SensorValueBatch {
+        return if (series == null) {
+            this
+        } else {
+            copy(series = null)
+        }
+    }
+}
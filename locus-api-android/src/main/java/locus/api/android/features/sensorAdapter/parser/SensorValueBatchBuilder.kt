@@ -12,10 +12,12 @@ import locus.api.android.features.sensorAdapter.LocusVariable
  * [LocusVariable] reference and a value matching that Variable's `T`; the compiler
  * rejects mismatches (e.g. writing a `Float` to a `LocusVariable<Int>`).
  *
- * The Builder converts each value to its locale-independent string form internally,
- * so adapter authors don't deal with the wire format directly. Conversion uses
- * Kotlin's `Number.toString()` which is locale-stable (always `.` decimal
- * separator); locale-aware formatters never enter the pipeline.
+ * Numeric values are kept as raw primitives ([LocusVariable.toRaw]) in the batch's
+ * `typedValues`, texts in its `values` map, so adapter authors don't deal with the wire
+ * format directly. Primitive overloads of [put] avoid boxing. For Locus versions that read
+ * only strings, [LocusParserAdapterService] converts the batch with Kotlin's
+ * `Number.toString()` which is locale-stable (always `.` decimal separator); locale-aware
+ * formatters never enter the pipeline.
  *
  * Typical usage:
  * ```
@@ -31,6 +33,12 @@ class SensorValueBatchBuilder(private val timestamp: Long) {
     private val values = mutableMapOf<Int, String>()
     private val writeBacks = mutableListOf<AdapterWrite>()
 
+    // numeric values in parallel arrays, see SensorTypedValues
+    private var typedRefIds = IntArray(INITIAL_CAPACITY)
+    private var typedTypes = ByteArray(INITIAL_CAPACITY)
+    private var typedValues = LongArray(INITIAL_CAPACITY)
+    private var typedCount = 0
+
     /**
      * Set the value for [variable]. The `T` constraint on the receiver means the
      * compiler rejects type mismatches at the call site — e.g.
@@ -42,10 +50,60 @@ class SensorValueBatchBuilder(private val timestamp: Long) {
      * multiple calls and rebuilds the final batch.
      */
     fun <T : Any> put(variable: LocusVariable<T>, value: T): SensorValueBatchBuilder {
-        values[variable.refId] = value.toString()
+        if (variable.valueType == LocusVariable.TYPE_STRING) {
+            values[variable.refId] = value.toString()
+        } else {
+            putRaw(variable, variable.toRaw(value))
+        }
+        return this
+    }
+
+    /**
+     * Set the `Int` value for [variable], without boxing. See the generic [put].
+     */
+    fun put(variable: LocusVariable<Int>, value: Int): SensorValueBatchBuilder {
+        putRaw(variable, value.toLong())
+        return this
+    }
+
+    /**
+     * Set the `Long` value for [variable], without boxing. See the generic [put].
+     */
+    fun put(variable: LocusVariable<Long>, value: Long): SensorValueBatchBuilder {
+        putRaw(variable, value)
         return this
     }
 
+    /**
+     * Set the `Float` value for [variable], without boxing. See the generic [put].
+     */
+    fun put(variable: LocusVariable<Float>, value: Float): SensorValueBatchBuilder {
+        putRaw(variable, value.toRawBits().toLong())
+        return this
+    }
+
+    private fun putRaw(variable: LocusVariable<*>, raw: Long) {
+        // last write wins
+        for (i in 0 until typedCount) {
+            if (typedRefIds[i] == variable.refId) {
+                typedValues[i] = raw
+                return
+            }
+        }
+
+        // append new value
+        if (typedCount == typedRefIds.size) {
+            val capacity = typedCount * 2
+            typedRefIds = typedRefIds.copyOf(capacity)
+            typedTypes = typedTypes.copyOf(capacity)
+            typedValues = typedValues.copyOf(capacity)
+        }
+        typedRefIds[typedCount] = variable.refId
+        typedTypes[typedCount] = variable.valueType.toByte()
+        typedValues[typedCount] = raw
+        typedCount++
+    }
+
     /**
      * Schedule a write-back to the device. Locus dispatches it after applying this batch's
      * values, on writable transports only (BT4 / BT3 / USB — not read-only NET). [target] is the
@@ -68,8 +126,23 @@ class SensorValueBatchBuilder(private val timestamp: Long) {
     fun build(): SensorValueBatch {
         return SensorValueBatch(
             timestamp = timestamp,
-            values = values.toMap(),
-            writeBacks = writeBacks.toList(),
+            values = if (values.isEmpty()) emptyMap() else values.toMap(),
+            writeBacks = if (writeBacks.isEmpty()) emptyList() else writeBacks.toList(),
+            typedValues = if (typedCount == 0) {
+                null
+            } else {
+                SensorTypedValues(
+                    typedRefIds.copyOf(typedCount),
+                    typedTypes.copyOf(typedCount),
+                    typedValues.copyOf(typedCount),
+                )
+            },
         )
     }
+
+    private companion object {
+
+        // initial capacity of numeric values, enough for usual single-sensor frame
+        const val INITIAL_CAPACITY = 4
+    }
 }
@@ -0,0 +1,77 @@
+package locus.api.android.features.sensorAdapter.parser
+
+import android.os.Parcelable
+import kotlinx.parcelize.Parcelize
+import locus.api.android.features.sensorAdapter.AdapterApi
+
+/**
+ * Time-series block of samples in [SensorValueBatch.series] ([AdapterApi.BATCH_FORMAT_SERIES]).
+ * Every sample has its own timestamp and a set of numeric values, so high-rate sensors (power
+ * meters, IMUs, 10 Hz GNSS) deliver every reading of a chunk in a single batch instead of only
+ * the newest one.
+ *
+ * Values of all samples share one [SensorTypedValues]; values of sample `i` are at indices
+ * `sampleOffsets[i] until sampleOffsets[i + 1]`. Build via [SensorSampleBuffer].
+ *
+ * Not a `data class`: the explicit `equals`/`hashCode` compare arrays by content, not identity.
+ *
+ * @property timestamps time of every sample, ms since epoch, in ascending order
+ * @property sampleOffsets index of the first value of every sample, plus total count at the end
+ * @property values values of all samples
+ */
+@Parcelize
+class SensorValueSeries(
+    val timestamps: LongArray,
+    val sampleOffsets: IntArray,
+    val values: SensorTypedValues,
+) : Parcelable {
+
+    init {
+        require(sampleOffsets.size == timestamps.size + 1) {
+            "SensorValueSeries.sampleOffsets must have one item more than timestamps"
+        }
+    }
+
+    /**
+     * Number of samples.
+     */
+    val sampleCount: Int
+        get() = timestamps.size
+
+    /**
+     * Index of the first value of [sample] in [values].
+     */
+    fun getValueStart(sample: Int): Int {
+        return sampleOffsets[sample]
+    }
+
+    /**
+     * Index behind the last value of [sample] in [values].
+     */
+    fun getValueEnd(sample: Int): Int {
+        return sampleOffsets[sample + 1]
+    }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        if (other !is SensorValueSeries) {
+            return false
+        }
+        return timestamps.contentEquals(other.timestamps)
+                && sampleOffsets.contentEquals(other.sampleOffsets)
+                && values == other.values
+    }
+
+    override fun hashCode(): Int {
+        var result = timestamps.contentHashCode()
+        result = 31 * result + sampleOffsets.contentHashCode()
+        result = 31 * result + values.hashCode()
+        return result
+    }
+
+    override fun toString(): String {
+        return "SensorValueSeries(sampleCount=$sampleCount, values=${values.size})"
+    }
+}
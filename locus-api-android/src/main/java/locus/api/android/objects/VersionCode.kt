@@ -173,5 +173,16 @@ enum class VersionCode(
      * Locus Map 4.1.0, Locus Classic 3.52.0 (1004)
      * <br></br>
      */
-    UPDATE_17(1004, 1004, 0)
+    UPDATE_17(1004, 1004, 0),
+
+    /**
+     * add: receiving of big data sent over the shared memory or split into chunks
+     * (`sendToApp` transport)
+     * <br></br>
+     * Not yet released, version codes are set once Locus Map with this support is published.
+     * Until then, no Locus app is valid for this version and features that require it
+     * (sending over shared memory or chunks) are experimental and not usable.
+     * <br></br>
+     */
+    UPDATE_18(0, 0, 0)
 }
\ No newline at end of file
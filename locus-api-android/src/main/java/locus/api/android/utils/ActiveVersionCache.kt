@@ -0,0 +1,168 @@
+package locus.api.android.utils
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.os.SystemClock
+import com.asamm.loggerV2.logE
+import locus.api.android.objects.LocusVersion
+import java.util.concurrent.Executors
+
+/**
+ * Cache of the active Locus version resolved by [LocusUtils.getActiveVersion].
+ *
+ * Resolved version is remembered for [LocusUtils.activeVersionCacheTtl] milliseconds. Cache is
+ * invalidated once any Locus package is installed, updated or removed.
+ */
+internal object ActiveVersionCache {
+
+    /**
+     * Minimal version codes the version was resolved for.
+     */
+    data class Key(val minFree: Int, val minPro: Int, val minGis: Int)
+
+    /**
+     * Resolved version and time of resolving.
+     */
+    private class Entry(val version: LocusVersion?, val time: Long)
+
+    // resolved versions
+    private val entries = HashMap<Key, Entry>()
+
+    // keys currently refreshed in the background
+    private val refreshing = HashSet<Key>()
+
+    // executor for background refresh
+    private val executor by lazy {
+        Executors.newSingleThreadExecutor { r ->
+            Thread(r, "LocusActiveVersion").apply { isDaemon = true }
+        }
+    }
+
+    // flag if receiver of package changes is registered
+    @Volatile
+    private var receiverRegistered = false
+
+    /**
+     * Receiver of changes in installed packages.
+     */
+    private val packageReceiver = object : BroadcastReceiver() {
+
+        override fun onReceive(context: Context, intent: Intent) {
+            val packageName = intent.data?.schemeSpecificPart
+            if (packageName == null || packageName.startsWith(LOCUS_PACKAGE_PREFIX)) {
+                invalidate()
+            }
+        }
+    }
+
+    /**
+     * Get cached version or resolve it, if not known or expired.
+     *
+     * @param ctx current context
+     * @param key minimal version codes
+     * @param ttl validity of cached version in milliseconds
+     * @param resolver resolver of the version
+     * @return active version
+     */
+    fun get(ctx: Context, key: Key, ttl: Long, resolver: () -> LocusVersion?): LocusVersion? {
+        synchronized(this) {
+            val entry = entries[key]
+            if (entry != null && isValid(entry, ttl)) {
+                return entry.version
+            }
+        }
+        return resolve(ctx, key, resolver)
+    }
+
+    /**
+     * Get cached version without blocking. Expired or missing version is resolved in
+     * the background, so next call returns a fresh value.
+     *
+     * @param ctx current context
+     * @param key minimal version codes
+     * @param ttl validity of cached version in milliseconds
+     * @param resolver resolver of the version
+     * @return cached version (possibly expired) or `null` if not yet known
+     */
+    fun peek(ctx: Context, key: Key, ttl: Long, resolver: () -> LocusVersion?): LocusVersion? {
+        val appCtx = ctx.applicationContext ?: ctx
+        synchronized(this) {
+            val entry = entries[key]
+            if ((entry == null || !isValid(entry, ttl)) && refreshing.add(key)) {
+                executor.execute {
+                    try {
+                        resolve(appCtx, key, resolver)
+                    } catch (e: Exception) {
+                        logE(tag = TAG, ex = e) { "peek($key), problem with resolving version" }
+                    } finally {
+                        synchronized(this) {
+                            refreshing.remove(key)
+                        }
+                    }
+                }
+            }
+            return entry?.version
+        }
+    }
+
+    /**
+     * Forget all cached versions.
+     */
+    fun invalidate() {
+        synchronized(this) {
+            entries.clear()
+        }
+    }
+
+    //*************************************************
+    // PRIVATE TOOLS
+    //*************************************************
+
+    private fun isValid(entry: Entry, ttl: Long): Boolean {
+        return SystemClock.elapsedRealtime() - entry.time < ttl
+    }
+
+    private fun resolve(ctx: Context, key: Key, resolver: () -> LocusVersion?): LocusVersion? {
+        registerReceiver(ctx)
+        val version = resolver()
+        synchronized(this) {
+            entries[key] = Entry(version, SystemClock.elapsedRealtime())
+        }
+        return version
+    }
+
+    /**
+     * Register receiver of package changes, if not yet registered.
+     */
+    private fun registerReceiver(ctx: Context) {
+        if (receiverRegistered) {
+            return
+        }
+        synchronized(this) {
+            if (receiverRegistered) {
+                return
+            }
+            try {
+                val filter = IntentFilter().apply {
+                    addAction(Intent.ACTION_PACKAGE_ADDED)
+                    addAction(Intent.ACTION_PACKAGE_CHANGED)
+                    addAction(Intent.ACTION_PACKAGE_REPLACED)
+                    addAction(Intent.ACTION_PACKAGE_REMOVED)
+                    addDataScheme("package")
+                }
+                (ctx.applicationContext ?: ctx).registerReceiver(packageReceiver, filter)
+                receiverRegistered = true
+            } catch (e: Exception) {
+                logE(tag = TAG, ex = e) { "registerReceiver($ctx)" }
+            }
+        }
+    }
+
+    // tag for logger
+    private const val TAG = "ActiveVersionCache"
+
+    // common prefix of all Locus packages
+    private const val LOCUS_PACKAGE_PREFIX = "menion.android.locus"
+}
@@ -207,6 +207,12 @@ object LocusConst {
      */
     const val ACTION_PERIODIC_UPDATE = "locus.api.android.ACTION_PERIODIC_UPDATE"
 
+    /**
+     * Action of the Locus service that sends [locus.api.android.features.periodicUpdates.UpdateContainer]
+     * values to subscribed listeners. Usage: `UpdateContainerSubscription`.
+     */
+    const val ACTION_UPDATE_CONTAINER_SERVICE = "locus.api.android.ACTION_UPDATE_CONTAINER_SERVICE"
+
     /**
      * Used for receiving events about changed point in Locus. These intent are
      * send as BroadcastIntents, so you need to register your app as BroadcastReceiver.
@@ -282,6 +288,17 @@ object LocusConst {
      */
     const val INTENT_EXTRA_POINTS_FILE_URI = "INTENT_EXTRA_POINTS_FILE_URI"
 
+    /**
+     * sends points data serialized as byte[] through shared memory region, extra contains
+     * only `IBinder` handle of the region
+     */
+    const val INTENT_EXTRA_POINTS_SHARED_MEMORY = "INTENT_EXTRA_POINTS_SHARED_MEMORY"
+
+    /**
+     * sends part of points data serialized as byte[], that were too big for a single intent
+     */
+    const val INTENT_EXTRA_POINTS_CHUNK = "INTENT_EXTRA_POINTS_CHUNK"
+
     /**
      * Sends one single track to Locus
      */
@@ -297,6 +314,17 @@ object LocusConst {
      */
     const val INTENT_EXTRA_TRACKS_FILE_URI = "INTENT_EXTRA_TRACKS_FILE_URI"
 
+    /**
+     * Sends tracks data serialized as byte[] through shared memory region, extra contains
+     * only `IBinder` handle of the region.
+     */
+    const val INTENT_EXTRA_TRACKS_SHARED_MEMORY = "INTENT_EXTRA_TRACKS_SHARED_MEMORY"
+
+    /**
+     * Sends part of tracks data serialized as byte[], that were too big for a single intent.
+     */
+    const val INTENT_EXTRA_TRACKS_CHUNK = "INTENT_EXTRA_TRACKS_CHUNK"
+
     /**
      * one PointData object, send over intent
      */
@@ -47,8 +47,8 @@ object LocusUtils {
 
     /**
      * Search for existing (and better also running) version of Locus. This function
-     * search for Locus, but also grab data from all instances. So it's suggested
-     * not to use this function too often. It is also possible to define minimum versionCode.
+     * search for Locus, but also grab data from all instances. Result is cached for
+     * [activeVersionCacheTtl] milliseconds. It is also possible to define minimum versionCode.
      *
      * @param ctx current context
      * @param minVersionCode minimal version code of Locus
@@ -60,8 +60,8 @@ object LocusUtils {
 
     /**
      * Search for existing (and better also running) version of Locus. This function
-     * search for Locus, but also grab data from all instances. So it's suggested
-     * not to use this function too often. It is also possible to define minimum versionCode.
+     * search for Locus, but also grab data from all instances. Result is cached for
+     * [activeVersionCacheTtl] milliseconds. It is also possible to define minimum versionCode.
      *
      * @param ctx current context
      * @param vc  version code
@@ -72,6 +72,61 @@ object LocusUtils {
         return getActiveVersion(ctx, vc.vcFree, vc.vcPro, vc.vcGis)
     }
 
+    /**
+     * Validity of the active version resolved by [getActiveVersion] in milliseconds. Cached
+     * version is also dropped once any Locus package is installed, updated or removed.
+     * Set to `0` to disable the cache.
+     */
+    var activeVersionCacheTtl: Long = 5000L
+
+    /**
+     * Get active version without blocking the current thread. Result of the last
+     * [getActiveVersion] call is returned, even if it already expired. Missing or expired
+     * version is resolved in the background, so the next call returns a fresh value.
+     *
+     * @param ctx current context
+     * @param vc  version code
+     * @return cached active version or `null` if not yet known
+     */
+    @JvmOverloads
+    fun peekActiveVersion(ctx: Context, vc: VersionCode = VersionCode.UPDATE_01): LocusVersion? {
+        val key = ActiveVersionCache.Key(vc.vcFree, vc.vcPro, vc.vcGis)
+        return ActiveVersionCache.peek(ctx, key, activeVersionCacheTtl) {
+            resolveActiveVersion(ctx, key.minFree, key.minPro, key.minGis)
+        }
+    }
+
+    /**
+     * Forget cached active version, so the next [getActiveVersion] call resolves it again.
+     */
+    fun invalidateActiveVersion() {
+        ActiveVersionCache.invalidate()
+    }
+
+    /**
+     * Search for existing (and better also running) version of Locus. Result is cached for
+     * [activeVersionCacheTtl] milliseconds.
+     *
+     * @param ctx current context
+     * @param minLocusMapFree minimal version code of Locus Map Free
+     * @param minLocusMapPro minimal version code of Locus Map Pro
+     * @param minLocusGis minimal version code of Locus GIS
+     * @return active version
+     */
+    private fun getActiveVersion(
+        ctx: Context,
+        minLocusMapFree: Int, minLocusMapPro: Int, minLocusGis: Int
+    ): LocusVersion? {
+        val ttl = activeVersionCacheTtl
+        if (ttl <= 0L) {
+            return resolveActiveVersion(ctx, minLocusMapFree, minLocusMapPro, minLocusGis)
+        }
+        val key = ActiveVersionCache.Key(minLocusMapFree, minLocusMapPro, minLocusGis)
+        return ActiveVersionCache.get(ctx, key, ttl) {
+            resolveActiveVersion(ctx, minLocusMapFree, minLocusMapPro, minLocusGis)
+        }
+    }
+
     /**
      * Search for existing (and better also running) version of Locus. This function
      * search for Locus, but also grab data from all instances. So it's suggested
@@ -83,7 +138,7 @@ object LocusUtils {
      * @param minLocusGis minimal version code of Locus GIS
      * @return active version
      */
-    private fun getActiveVersion(
+    private fun resolveActiveVersion(
         ctx: Context,
         minLocusMapFree: Int, minLocusMapPro: Int, minLocusGis: Int
     ): LocusVersion? {
@@ -387,10 +442,13 @@ object LocusUtils {
      * Convert a Location object from Android to Locus format
      *
      * @param oldLoc location in Android object
-     * @return new Locus object
+     * @param into existing Locus object to reuse (for example obtained from
+     * [locus.api.objects.extra.LocationPool]), new object is created by default
+     * @return new or reused Locus object
      */
-    fun convertToL(oldLoc: android.location.Location): Location {
-        val loc = Location()
+    @JvmOverloads
+    fun convertToL(oldLoc: android.location.Location, into: Location? = null): Location {
+        val loc = into?.apply { reset() } ?: Location()
         loc.provider = oldLoc.provider ?: ""
         loc.longitude = oldLoc.longitude
         loc.latitude = oldLoc.latitude
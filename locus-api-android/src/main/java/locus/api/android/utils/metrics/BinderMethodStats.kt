@@ -0,0 +1,68 @@
+package locus.api.android.utils.metrics
+
+/**
+ * Snapshot of aggregated calls of a single method, created by [BinderMetricsRegistry.snapshot].
+ * Histogram buckets are described in [BinderMetricsRegistry].
+ *
+ * @property service name of the service
+ * @property method name of the AIDL method
+ * @property count number of calls
+ * @property failures number of failed calls
+ * @property totalNanos total duration of all calls
+ * @property maxNanos duration of the longest call
+ * @property requestBytes total size of all requests
+ * @property responseBytes total size of all responses
+ * @property maxRequestBytes size of the largest request
+ * @property maxResponseBytes size of the largest response
+ * @property latencyBuckets histogram of durations in microseconds
+ * @property requestSizeBuckets histogram of request sizes in bytes
+ * @property responseSizeBuckets histogram of response sizes in bytes
+ */
+class BinderMethodStats(
+    val service: String,
+    val method: String,
+    val count: Long,
+    val failures: Long,
+    val totalNanos: Long,
+    val maxNanos: Long,
+    val requestBytes: Long,
+    val responseBytes: Long,
+    val maxRequestBytes: Int,
+    val maxResponseBytes: Int,
+    val latencyBuckets: LongArray,
+    val requestSizeBuckets: LongArray,
+    val responseSizeBuckets: LongArray,
+) {
+
+    /**
+     * Average duration of a call, `0` if there was no call.
+     */
+    val averageNanos: Long
+        get() = if (count > 0L) totalNanos / count else 0L
+
+    /**
+     * Estimate the duration that [percentile] (`0.0` - `1.0`) of calls did not exceed. Result is
+     * the upper bound of the histogram bucket, so it is up to two times higher than the real
+     * value, but never higher than [maxNanos].
+     */
+    fun getLatencyPercentileNanos(percentile: Double): Long {
+        if (count == 0L) {
+            return 0L
+        }
+        val target = (percentile.coerceIn(0.0, 1.0) * count).toLong().coerceAtLeast(1L)
+        var sum = 0L
+        for (i in latencyBuckets.indices) {
+            sum += latencyBuckets[i]
+            if (sum >= target) {
+                return minOf((1L shl i) * 1000L, maxNanos)
+            }
+        }
+        return maxNanos
+    }
+
+    override fun toString(): String {
+        return "BinderMethodStats($service.$method, count=$count, failures=$failures, " +
+                "avg=${averageNanos / 1000L} us, max=${maxNanos / 1000L} us, " +
+                "request=$requestBytes B, response=$responseBytes B)"
+    }
+}
@@ -0,0 +1,104 @@
+package locus.api.android.utils.metrics
+
+import android.os.IBinder
+import android.os.Parcel
+
+/**
+ * Instrumentation of binder calls of Locus API services: `MapTileService`,
+ * `ComputeTrackService` and `LocusParserAdapterService`.
+ *
+ * Disabled by default. Once a [BinderMetricsRecorder] is set, every incoming call is measured —
+ * duration, size of the request and response parcels and failure — and passed to the recorder.
+ * Without a recorder, the only cost of a call is a single read of a volatile field.
+ *
+ * Typical usage:
+ * ```
+ * val registry = BinderMetricsRegistry()
+ * BinderMetrics.setRecorder(registry)
+ * …
+ * for (stats in registry.snapshot()) {
+ *     telemetry.report(stats.method, stats.count, stats.getLatencyPercentileNanos(0.95))
+ * }
+ * ```
+ */
+object BinderMetrics {
+
+    // current recorder, `null` if disabled
+    @Volatile
+    internal var recorder: BinderMetricsRecorder? = null
+
+    // flag of a failure reported by the service during the current call
+    internal val failure = object : ThreadLocal<BooleanArray>() {
+
+        override fun initialValue(): BooleanArray {
+            return BooleanArray(1)
+        }
+    }
+
+    /**
+     * Flag if calls are measured.
+     */
+    val isEnabled: Boolean
+        get() = recorder != null
+
+    /**
+     * Set recorder of measured calls or `null` to disable measuring.
+     */
+    @JvmStatic
+    fun setRecorder(recorder: BinderMetricsRecorder?) {
+        this.recorder = recorder
+    }
+
+    /**
+     * Mark the current call as failed, even if it does not throw an exception (e.g. an invalid
+     * request answered by an error code). No-op if measuring is disabled.
+     */
+    @JvmStatic
+    fun reportFailure() {
+        if (recorder != null) {
+            failure.get()!![0] = true
+        }
+    }
+
+    /**
+     * Measure single incoming transaction. Used from `onTransact` of services.
+     *
+     * @param service name of the service
+     * @param methods names of AIDL methods in order of their declaration
+     * @param code code of the transaction
+     * @param data request parcel
+     * @param reply response parcel, `null` for `oneway` methods
+     * @param transact performs the transaction itself
+     */
+    internal inline fun measure(
+        service: String,
+        methods: Array<String>,
+        code: Int,
+        data: Parcel,
+        reply: Parcel?,
+        transact: () -> Boolean,
+    ): Boolean {
+        // disabled or system transaction (interface descriptor, dump, ...)
+        val recorder = recorder
+        if (recorder == null || code < IBinder.FIRST_CALL_TRANSACTION
+            || code > IBinder.LAST_CALL_TRANSACTION) {
+            return transact()
+        }
+
+        val flag = failure.get()!!
+        flag[0] = false
+        val requestBytes = data.dataSize()
+        val start = System.nanoTime()
+        var failed = true
+        try {
+            val handled = transact()
+            failed = flag[0]
+            return handled
+        } finally {
+            val duration = System.nanoTime() - start
+            val method = methods.getOrNull(code - IBinder.FIRST_CALL_TRANSACTION)
+                ?: code.toString()
+            recorder.onCall(service, method, duration, requestBytes, reply?.dataSize() ?: 0, failed)
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package locus.api.android.utils.metrics
+
+/**
+ * Receiver of measured binder calls of Locus API services (see [BinderMetrics]). Implement to
+ * export calls directly into own telemetry, or use [BinderMetricsRegistry] that aggregates them
+ * per method.
+ *
+ * Called on the binder thread right after every call, so implementation has to be thread-safe
+ * and fast.
+ */
+fun interface BinderMetricsRecorder {
+
+    /**
+     * Single binder call finished.
+     *
+     * @param service name of the service
+     * @param method name of the AIDL method
+     * @param durationNanos duration of the call
+     * @param requestBytes size of the request parcel
+     * @param responseBytes size of the response parcel, `0` for `oneway` methods
+     * @param failed `true` if call threw an exception or service reported a failed request
+     */
+    fun onCall(
+        service: String,
+        method: String,
+        durationNanos: Long,
+        requestBytes: Int,
+        responseBytes: Int,
+        failed: Boolean,
+    )
+}
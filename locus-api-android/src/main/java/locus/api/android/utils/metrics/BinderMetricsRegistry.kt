@@ -0,0 +1,124 @@
+package locus.api.android.utils.metrics
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * [BinderMetricsRecorder] that aggregates measured calls per service and method: number of
+ * calls and failures, latency histogram and sizes of requests and responses. Current values are
+ * obtained by [snapshot], e.g. periodically for export into own telemetry.
+ *
+ * Histograms have exponential buckets: bucket `i` counts values in range `[2^(i-1), 2^i)`
+ * (microseconds for latency, bytes for sizes), bucket `0` values below `1`, the last bucket
+ * all larger values.
+ *
+ * Thread-safe; recording of a call does not allocate, once its method is known.
+ */
+class BinderMetricsRegistry : BinderMetricsRecorder {
+
+    /**
+     * Aggregated values of a single method.
+     */
+    private class MethodCounter {
+
+        var count = 0L
+        var failures = 0L
+        var totalNanos = 0L
+        var maxNanos = 0L
+        var requestBytes = 0L
+        var responseBytes = 0L
+        var maxRequestBytes = 0
+        var maxResponseBytes = 0
+        val latencyBuckets = LongArray(LATENCY_BUCKETS)
+        val requestSizeBuckets = LongArray(SIZE_BUCKETS)
+        val responseSizeBuckets = LongArray(SIZE_BUCKETS)
+    }
+
+    // counters by service and method
+    private val services = ConcurrentHashMap<String, ConcurrentHashMap<String, MethodCounter>>()
+
+    override fun onCall(
+        service: String,
+        method: String,
+        durationNanos: Long,
+        requestBytes: Int,
+        responseBytes: Int,
+        failed: Boolean,
+    ) {
+        val counter = services.getOrPut(service) { ConcurrentHashMap() }
+            .getOrPut(method) { MethodCounter() }
+        synchronized(counter) {
+            counter.count++
+            if (failed) {
+                counter.failures++
+            }
+            counter.totalNanos += durationNanos
+            counter.maxNanos = maxOf(counter.maxNanos, durationNanos)
+            counter.requestBytes += requestBytes
+            counter.responseBytes += responseBytes
+            counter.maxRequestBytes = maxOf(counter.maxRequestBytes, requestBytes)
+            counter.maxResponseBytes = maxOf(counter.maxResponseBytes, responseBytes)
+            counter.latencyBuckets[getBucket(durationNanos / 1000L, LATENCY_BUCKETS)]++
+            counter.requestSizeBuckets[getBucket(requestBytes.toLong(), SIZE_BUCKETS)]++
+            counter.responseSizeBuckets[getBucket(responseBytes.toLong(), SIZE_BUCKETS)]++
+        }
+    }
+
+    /**
+     * Get current values of all measured methods.
+     */
+    fun snapshot(): List<BinderMethodStats> {
+        val result = ArrayList<BinderMethodStats>()
+        for ((service, methods) in services) {
+            for ((method, counter) in methods) {
+                result += synchronized(counter) {
+                    BinderMethodStats(
+                        service = service,
+                        method = method,
+                        count = counter.count,
+                        failures = counter.failures,
+                        totalNanos = counter.totalNanos,
+                        maxNanos = counter.maxNanos,
+                        requestBytes = counter.requestBytes,
+                        responseBytes = counter.responseBytes,
+                        maxRequestBytes = counter.maxRequestBytes,
+                        maxResponseBytes = counter.maxResponseBytes,
+                        latencyBuckets = counter.latencyBuckets.copyOf(),
+                        requestSizeBuckets = counter.requestSizeBuckets.copyOf(),
+                        responseSizeBuckets = counter.responseSizeBuckets.copyOf(),
+                    )
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * Drop all aggregated values.
+     */
+    fun reset() {
+        services.clear()
+    }
+
+    companion object {
+
+        /**
+         * Number of buckets of latency histogram, the last one starts at ~8.4 s.
+         */
+        const val LATENCY_BUCKETS = 25
+
+        /**
+         * Number of buckets of size histograms, the last one starts at 1 MB.
+         */
+        const val SIZE_BUCKETS = 22
+
+        /**
+         * Get bucket of the histogram for [value].
+         */
+        internal fun getBucket(value: Long, buckets: Int): Int {
+            if (value < 1L) {
+                return 0
+            }
+            return (64 - java.lang.Long.numberOfLeadingZeros(value)).coerceAtMost(buckets - 1)
+        }
+    }
+}
@@ -40,11 +40,12 @@ abstract class Storable {
     /**
      * Create precise copy of current object.
      * Method is that object is stored into byte stream and then restored
-     * as a new object.
+     * as a new object. Objects that are commonly copied override this property
+     * with direct typed deep copy, that is much faster.
      *
      * @return exact clone of this object
      */
-    val copy: Storable
+    open val copy: Storable
         @Throws(IOException::class, InstantiationException::class, IllegalAccessException::class)
         get() {
             return read(this.javaClass, DataReaderBigEndian(asBytes))
@@ -75,8 +76,8 @@ abstract class Storable {
         // current item version
         var version: Int = 0
 
-        // data in item
-        var data: ByteArray? = null
+        // reader of the item body
+        lateinit var reader: DataReaderBigEndian
     }
 
     //*************************************************
@@ -105,7 +106,7 @@ abstract class Storable {
         val bc = readHeader(dr)
 
         // read body
-        readObject(bc.version, DataReaderBigEndian(bc.data))
+        readObject(bc.version, bc.reader)
     }
 
     /**
@@ -119,7 +120,7 @@ abstract class Storable {
         val bc = readHeader(input)
 
         // read body
-        readObject(bc.version, DataReaderBigEndian(bc.data))
+        readObject(bc.version, bc.reader)
     }
 
     /**
@@ -200,8 +201,8 @@ abstract class Storable {
                 throw IOException("item size too big, size:$size, max: 50MB")
             }
 
-            // read object data
-            bc.data = dr.readBytes(size)
+            // prepare reader of object data, data are shared with the parent reader
+            bc.reader = dr.readNested(size)
 
             // return filled container
             return bc
@@ -228,9 +229,9 @@ abstract class Storable {
             }
 
             // read object data
-            bc.data = ByteArray(size)
-
-            dis.read(bc.data!!)
+            val data = ByteArray(size)
+            dis.read(data)
+            bc.reader = DataReaderBigEndian(data)
 
             // return filled container
             return bc
@@ -251,12 +252,28 @@ abstract class Storable {
          */
         @Throws(IOException::class, InstantiationException::class, IllegalAccessException::class)
         fun <E : Storable> read(claz: Class<E>, dr: DataReaderBigEndian): E {
+            return read(claz, dr, null)
+        }
+
+        /**
+         * Read certain class from input. In case, [into] instance is defined, data are read into
+         * this existing object instead of creating a new one. This is useful for frequently
+         * received objects (like [locus.api.objects.extra.Location]), that are able to reset
+         * their state during [readObject].
+         *
+         * @param claz class to instantiate and read
+         * @param dr   reader with data
+         * @param into existing object to reuse
+         * @return read class
+         */
+        @Throws(IOException::class, InstantiationException::class, IllegalAccessException::class)
+        fun <E : Storable> read(claz: Class<E>, dr: DataReaderBigEndian, into: E?): E {
             // read header
             val bc = readHeader(dr)
 
             // now initialize object. Data are already loaded, so error will not break data flow
-            val storable = claz.newInstance()
-            storable.readObject(bc.version, DataReaderBigEndian(bc.data))
+            val storable = into ?: claz.newInstance()
+            storable.readObject(bc.version, bc.reader)
             return storable
         }
 
@@ -286,11 +303,13 @@ abstract class Storable {
         }
 
         /**
-         * Read list of certain classes from input stream.
+         * Read list of certain classes from input stream. List in the compact format is not
+         * supported here, use [readList] with byte array for it.
          *
          * @param claz class to instantiate and read
          * @param dis  input stream with data
          * @return loaded list of items
+         * @throws IOException in case of invalid data or list in the compact format
          */
         @Throws(IOException::class)
         fun <E : Storable> readList(
@@ -302,6 +321,10 @@ abstract class Storable {
 
             // read size
             val count = dis.readInt()
+            if (count == DataWriterBigEndian.LIST_COMPACT_MARKER) {
+                // items of compact list need shared tables, available only in `DataReaderBigEndian`
+                throw IOException("compact list is not supported in stream")
+            }
             if (count == 0) {
                 return objs
             }
@@ -324,6 +347,24 @@ abstract class Storable {
 
         // WRITE LIST PART
 
+        /**
+         * Get list of items as byte array in the compact format, where styles shared by items
+         * are stored only once. Result may be read by [readList].
+         *
+         * @param data list of storable items
+         * @return generated byte array with items
+         */
+        fun getAsBytesCompact(data: List<Storable>): ByteArray? {
+            return try {
+                DataWriterBigEndian().apply {
+                    writeListStorableCompact(data)
+                }.toByteArray()
+            } catch (e: Exception) {
+                logE(tag = TAG, ex = e) { "getAsBytesCompact($data)" }
+                null
+            }
+        }
+
         /**
          * Get list of items as byte array.
          *
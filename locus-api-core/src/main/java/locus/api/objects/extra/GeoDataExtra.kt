@@ -320,6 +320,14 @@ class GeoDataExtra : Storable() {
     // STORABLE PART
     //*************************************************
 
+    override val copy: GeoDataExtra
+        get() = GeoDataExtra().also {
+            it.parameters = SparseArrayCompat(parameters.size())
+            for (i in 0 until parameters.size()) {
+                it.parameters.put(parameters.keyAt(i), parameters.valueAt(i).copyOf())
+            }
+        }
+
     override fun getVersion(): Int {
         return 0
     }
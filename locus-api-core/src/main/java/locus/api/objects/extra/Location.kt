@@ -188,10 +188,36 @@ class Location() : Storable() {
         set(loc)
     }
 
+    /**
+     * Create precise copy of current location.
+     */
+    override val copy: Location
+        get() = Location(this)
+
+    /**
+     * Reset the location to the default state, so it may be reused. Already allocated containers
+     * for extra values are kept, so filling the location again does not require new allocations.
+     */
+    fun reset() {
+        id = -1L
+        time = 0L
+        latitude = 0.0
+        longitude = 0.0
+        extraDataShort?.clear()
+        extraDataInt?.clear()
+        extraDataLong?.clear()
+        extraDataFloat?.clear()
+        extraDataDouble?.clear()
+        extraDataString?.clear()
+    }
+
     /**
      * Sets the contents of the location to the values from the given location.
      */
     fun set(loc: Location) {
+        if (loc === this) {
+            return
+        }
         id = loc.id
         provider = loc.provider
         time = loc.time
@@ -199,7 +225,7 @@ class Location() : Storable() {
         longitude = loc.longitude
 
         // set extra data
-        extraDataShort = null
+        extraDataShort?.clear()
         loc.extraDataShort
             ?.takeIf { !it.isEmpty }
             ?.let {
@@ -207,7 +233,7 @@ class Location() : Storable() {
                     setDataShort(it.keyAt(i), it.valueAt(i))
                 }
             }
-        extraDataInt = null
+        extraDataInt?.clear()
         loc.extraDataInt
             ?.takeIf { !it.isEmpty }
             ?.let {
@@ -215,7 +241,7 @@ class Location() : Storable() {
                     setDataInt(it.keyAt(i), it.valueAt(i))
                 }
             }
-        extraDataLong = null
+        extraDataLong?.clear()
         loc.extraDataLong
             ?.takeIf { !it.isEmpty }
             ?.let {
@@ -224,7 +250,7 @@ class Location() : Storable() {
                 }
             }
 
-        extraDataFloat = null
+        extraDataFloat?.clear()
         loc.extraDataFloat
             ?.takeIf { !it.isEmpty }
             ?.let {
@@ -232,7 +258,7 @@ class Location() : Storable() {
                     setDataFloat(it.keyAt(i), it.valueAt(i))
                 }
             }
-        extraDataDouble = null
+        extraDataDouble?.clear()
         loc.extraDataDouble
             ?.takeIf { !it.isEmpty }
             ?.let {
@@ -240,7 +266,7 @@ class Location() : Storable() {
                     setDataDouble(it.keyAt(i), it.valueAt(i))
                 }
             }
-        extraDataString = null
+        extraDataString?.clear()
         loc.extraDataString
             ?.takeIf { !it.isEmpty }
             ?.let {
@@ -702,8 +728,9 @@ class Location() : Storable() {
 
     @Throws(IOException::class)
     override fun readObject(version: Int, dr: DataReaderBigEndian) {
+        reset()
         id = dr.readLong()
-        provider = dr.readString().takeIf { it.isNotBlank() }
+        provider = dr.readStringShared().takeIf { it.isNotBlank() }
         time = dr.readLong()
         latitude = dr.readDouble()
         longitude = dr.readDouble()
@@ -777,22 +804,22 @@ class Location() : Storable() {
         // V3
         var size: Byte
         if (version >= 3) {
-            extraDataShort = null
+            extraDataShort?.clear()
             size = dr.readByte()
             for (i in 0 until size) {
                 setDataShort(dr.readByte(), dr.readShort())
             }
-            extraDataInt = null
+            extraDataInt?.clear()
             size = dr.readByte()
             for (i in 0 until size) {
                 setDataInt(dr.readByte(), dr.readInt())
             }
-            extraDataFloat = null
+            extraDataFloat?.clear()
             size = dr.readByte()
             for (i in 0 until size) {
                 setDataFloat(dr.readByte(), dr.readFloat())
             }
-            extraDataDouble = null
+            extraDataDouble?.clear()
             size = dr.readByte()
             for (i in 0 until size) {
                 setDataDouble(dr.readByte(), dr.readDouble())
@@ -801,12 +828,12 @@ class Location() : Storable() {
 
         // V4
         if (version >= 4) {
-            extraDataLong = null
+            extraDataLong?.clear()
             size = dr.readByte()
             for (i in 0 until size) {
                 setDataLong(dr.readByte(), dr.readLong())
             }
-            extraDataString = null
+            extraDataString?.clear()
             size = dr.readByte()
             for (i in 0 until size) {
                 setDataString(dr.readByte(), dr.readString())
@@ -817,7 +844,7 @@ class Location() : Storable() {
     @Throws(IOException::class)
     override fun writeObject(dw: DataWriterBigEndian) {
         dw.writeLong(id)
-        dw.writeString(provider)
+        dw.writeStringShared(provider)
         dw.writeLong(time)
         dw.writeDouble(latitude)
         dw.writeDouble(longitude)
@@ -0,0 +1,50 @@
+package locus.api.objects.extra
+
+/**
+ * Bounded pool of reusable [Location] objects.
+ *
+ * Useful for high-rate receivers (periodic updates, sensors), that may obtain location from the
+ * pool, fill it (for example by [Location.read]) and release it back, once the value is no longer
+ * needed. Released location must not be used by the caller anymore!
+ *
+ * @param maxSize maximal number of locations kept in the pool
+ */
+class LocationPool(private val maxSize: Int = 16) {
+
+    // container for released locations
+    private val locations = ArrayDeque<Location>(maxSize)
+
+    /**
+     * Number of locations currently available in the pool.
+     */
+    val size: Int
+        get() = synchronized(locations) {
+            locations.size
+        }
+
+    /**
+     * Get location from the pool. In case, pool is empty, new location is created.
+     *
+     * @return location in the default state
+     */
+    fun obtain(): Location {
+        return synchronized(locations) {
+            locations.removeLastOrNull()
+        } ?: Location()
+    }
+
+    /**
+     * Return location back into the pool. Location is reset, so it keeps already allocated
+     * containers for extra values. In case, pool is full, location is left for garbage collector.
+     *
+     * @param loc location to release
+     */
+    fun release(loc: Location) {
+        loc.reset()
+        synchronized(locations) {
+            if (locations.size < maxSize && locations.none { it === loc }) {
+                locations.addLast(loc)
+            }
+        }
+    }
+}
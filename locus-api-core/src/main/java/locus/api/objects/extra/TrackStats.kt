@@ -489,6 +489,42 @@ class TrackStats : Storable() {
     // STORABLE
     //*************************************************
 
+    override val copy: TrackStats
+        get() = TrackStats().also {
+            it.numOfPoints = numOfPoints
+            it.startTime = startTime
+            it.stopTime = stopTime
+            it.totalLength = totalLength
+            it.totalLengthMove = totalLengthMove
+            it.totalTime = totalTime
+            it.totalTimeMove = totalTimeMove
+            it.speedMax = speedMax
+
+            it.altitudeMax = altitudeMax
+            it.altitudeMin = altitudeMin
+            it.eleNeutralDistance = eleNeutralDistance
+            it.eleNeutralHeight = eleNeutralHeight
+            it.elePositiveDistance = elePositiveDistance
+            it.elePositiveHeight = elePositiveHeight
+            it.eleNegativeDistance = eleNegativeDistance
+            it.eleNegativeHeight = eleNegativeHeight
+
+            it.cadenceNumber = cadenceNumber
+            it.cadenceTime = cadenceTime
+            it.cadenceMax = cadenceMax
+            it.energy = energy
+            it.heartRateBeats = heartRateBeats
+            it.heartRateTime = heartRateTime
+            it.heartRateMax = heartRateMax
+            it.powerAvgSum = powerAvgSum
+            it.powerTime = powerTime
+            it.powerMax = powerMax
+            it.hasTemperature = hasTemperature
+            it.temperatureMin = temperatureMin
+            it.temperatureMax = temperatureMax
+            it.numOfStrides = numOfStrides
+        }
+
     override fun getVersion(): Int {
         return 4
     }
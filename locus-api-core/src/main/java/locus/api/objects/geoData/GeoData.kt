@@ -25,6 +25,7 @@ import com.asamm.loggerV2.logW
 import locus.api.objects.Storable
 import locus.api.objects.extra.GeoDataExtra
 import locus.api.objects.styles.GeoDataStyle
+import locus.api.objects.styles.GeoDataStyleTable
 import locus.api.utils.DataReaderBigEndian
 import locus.api.utils.DataWriterBigEndian
 import java.io.IOException
@@ -78,14 +79,38 @@ abstract class GeoData : Storable() {
     var extraData: GeoDataExtra? = null
 
     /**
-     * Style for normal state.
+     * Style for normal state. Items read from a compact list (see [GeoDataStyleTable]) may share
+     * a single instance with other items, so use [mutableStyleNormal] to modify it.
      */
-    var styleNormal: GeoDataStyle? = null
+    var styleNormal: GeoDataStyle?
+        get() = _styleNormal
+        set(value) {
+            _styleNormal = value
+            styleNormalShared = false
+        }
+
+    // style for normal state, possibly shared with other items
+    private var _styleNormal: GeoDataStyle? = null
+
+    // flag if `_styleNormal` is shared with other items
+    private var styleNormalShared = false
 
     /**
-     * Style for highlight state.
+     * Style for highlight state. Style may be shared with other items, same as [styleNormal], so
+     * use [mutableStyleHighlight] to modify it.
      */
-    var styleHighlight: GeoDataStyle? = null
+    var styleHighlight: GeoDataStyle?
+        get() = _styleHighlight
+        set(value) {
+            _styleHighlight = value
+            styleHighlightShared = false
+        }
+
+    // style for highlight state, possibly shared with other items
+    private var _styleHighlight: GeoDataStyle? = null
+
+    // flag if `_styleHighlight` is shared with other items
+    private var styleHighlightShared = false
 
     /**
      * Define item privacy mode.
@@ -321,8 +346,50 @@ abstract class GeoData : Storable() {
     // STYLES
     //*************************************************
 
+    /**
+     * Get style for normal state that may be safely modified. Style shared with other items is
+     * replaced by its private copy first, so changes never affect others.
+     *
+     * @return style owned by this item or `null` if no style is defined
+     */
+    fun mutableStyleNormal(): GeoDataStyle? {
+        if (styleNormalShared) {
+            _styleNormal = _styleNormal?.copy
+            styleNormalShared = false
+        }
+        return _styleNormal
+    }
+
+    /**
+     * Get style for highlight state that may be safely modified, same as [mutableStyleNormal].
+     *
+     * @return style owned by this item or `null` if no style is defined
+     */
+    fun mutableStyleHighlight(): GeoDataStyle? {
+        if (styleHighlightShared) {
+            _styleHighlight = _styleHighlight?.copy
+            styleHighlightShared = false
+        }
+        return _styleHighlight
+    }
+
     @Throws(IOException::class)
     protected fun readStyles(dr: DataReaderBigEndian) {
+        // styles shared by list items, copied once item needs to modify them
+        val styleTable = dr.styleTable
+        if (styleTable != null) {
+            styleTable.get(dr.readInt())?.let {
+                _styleNormal = it
+                styleNormalShared = true
+            }
+            styleTable.get(dr.readInt())?.let {
+                _styleHighlight = it
+                styleHighlightShared = true
+            }
+            return
+        }
+
+        // styles stored directly
         if (dr.readBoolean()) {
             styleNormal = GeoDataStyle().apply { read(dr) }
         }
@@ -333,13 +400,22 @@ abstract class GeoData : Storable() {
 
     @Throws(IOException::class)
     protected fun writeStyles(dw: DataWriterBigEndian) {
-        styleNormal?.let {
+        // styles shared by list items
+        val styleTable = dw.styleTable
+        if (styleTable != null) {
+            dw.writeInt(_styleNormal?.let { styleTable.indexOf(it) } ?: -1)
+            dw.writeInt(_styleHighlight?.let { styleTable.indexOf(it) } ?: -1)
+            return
+        }
+
+        // styles stored directly
+        _styleNormal?.let {
             dw.writeBoolean(true)
             dw.writeStorable(it)
         } ?: run {
             dw.writeBoolean(false)
         }
-        styleHighlight?.let {
+        _styleHighlight?.let {
             dw.writeBoolean(true)
             dw.writeStorable(it)
         } ?: run {
@@ -363,6 +439,55 @@ abstract class GeoData : Storable() {
             extraData = null
         }
 
+    //*************************************************
+    // COPY
+    //*************************************************
+
+    /**
+     * Copy all serialized parameters of this object into the [target] object. Temporary
+     * parameters (state, tags) are not copied, same as during serialization.
+     *
+     * @param target object to fill
+     */
+    protected fun copyGeoData(target: GeoData) {
+        target.id = id
+        target.name = name
+        target.timeCreated = timeCreated
+        target.timeUpdated = timeUpdated
+        target.extraData = extraData?.copy
+        target.styleNormal = _styleNormal?.copy
+        target.styleHighlight = _styleHighlight?.copy
+        target.privacy = privacy
+        target.protected = protected
+    }
+
+    //*************************************************
+    // PRIVACY
+    //*************************************************
+
+    /**
+     * Read privacy mode. In the compact list format, privacy is stored as an ordinal value,
+     * otherwise as a name of the value.
+     */
+    @Throws(IOException::class)
+    protected fun readPrivacy(dr: DataReaderBigEndian) {
+        privacy = if (dr.stringTable != null) {
+            Privacy.values().getOrNull(dr.readByte().toInt())
+        } else {
+            val privacyValue = dr.readString()
+            Privacy.values().find { it.name == privacyValue }
+        } ?: privacy
+    }
+
+    @Throws(IOException::class)
+    protected fun writePrivacy(dw: DataWriterBigEndian) {
+        if (dw.stringTable != null) {
+            dw.writeByte(privacy.ordinal.toByte())
+        } else {
+            dw.writeString(privacy.name)
+        }
+    }
+
     //*************************************************
     // TAGS
     //*************************************************
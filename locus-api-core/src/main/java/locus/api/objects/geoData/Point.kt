@@ -181,6 +181,13 @@ class Point() : GeoData() {
     // STORABLE
     //*************************************************
 
+    override val copy: Point
+        get() = Point().also {
+            copyGeoData(it)
+            it.location = location.copy
+            it.gcData = gcData?.copy
+        }
+
     override fun getVersion(): Int {
         return 4
     }
@@ -215,9 +222,7 @@ class Point() : GeoData() {
 
         // V4
         if (version >= 4) {
-            val privacyValue = dr.readString()
-            privacy = Privacy.values().find { it.name == privacyValue }
-                ?: privacy
+            readPrivacy(dr)
         }
     }
 
@@ -244,7 +249,7 @@ class Point() : GeoData() {
         dw.writeLong(timeUpdated)
 
         // V4
-        dw.writeString(privacy.name)
+        writePrivacy(dw)
     }
 
     @Throws(IOException::class)
@@ -145,6 +145,19 @@ class Track : GeoData() {
     // STORABLE PART
     //*************************************************
 
+    override val copy: Track
+        get() = Track().also {
+            copyGeoData(it)
+            it.points = points.mapTo(ArrayList(points.size)) { loc -> loc.copy }
+            it.breaks = ArrayList(breaks)
+            it.waypoints = waypoints.mapTo(ArrayList(waypoints.size)) { pt -> pt.copy }
+            it.useParentLineStyle = useParentLineStyle
+            it.activityType = activityType
+            it.stats = stats.copy
+            it.storeItemId = storeItemId
+            it.storeVersionId = storeVersionId
+        }
+
     public override fun getVersion(): Int {
         return 8
     }
@@ -216,9 +229,7 @@ class Track : GeoData() {
 
         // V8
         if (version >= 8) {
-            val privacyValue = dr.readString()
-            privacy = Privacy.values().find { it.name == privacyValue }
-                ?: privacy
+            readPrivacy(dr)
         }
     }
 
@@ -271,7 +282,7 @@ class Track : GeoData() {
         dw.writeLong(timeUpdated)
 
         // V8
-        dw.writeString(privacy.name)
+        writePrivacy(dw)
     }
 
     companion object {
@@ -459,6 +459,51 @@ class GeocachingData : Storable() {
     // STORABLE PART
     //*************************************************
 
+    override val copy: GeocachingData
+        get() = GeocachingData().also {
+            it.id = id
+            it.cacheID = cacheID
+            it.isAvailable = isAvailable
+            it.isArchived = isArchived
+            it.isPremiumOnly = isPremiumOnly
+            it.name = name
+            it.dateUpdated = dateUpdated
+            it.dateHidden = dateHidden
+            it.placedBy = placedBy
+            it.owner = owner
+            it.datePublished = datePublished
+            it.type = type
+            it.container = container
+            it.difficulty = difficulty
+            it.terrain = terrain
+            it.country = country
+            it.state = state
+            it.descBytes = descBytes?.copyOf()
+            it.shortDescLength = shortDescLength
+            it.encodedHints = encodedHints
+            it.attributes = attributes.mapTo(arrayListOf()) { attr ->
+                GeocachingAttribute().apply { this.id = attr.id }
+            }
+            it.logs = logs.mapTo(arrayListOf()) { log -> log.copy as GeocachingLog }
+            it.trackables = trackables.mapTo(arrayListOf()) { tb -> tb.copy as GeocachingTrackable }
+            it.waypoints = waypoints.mapTo(arrayListOf()) { wpt -> wpt.copy as GeocachingWaypoint }
+            it.notesLocal = notesLocal
+            it.isComputed = isComputed
+            it.isFound = isFound
+            it.cacheUrl = cacheUrl
+            it.favoritePoints = favoritePoints
+            it.gcVoteNumOfVotes = gcVoteNumOfVotes
+            it.gcVoteAverage = gcVoteAverage
+            it.gcVoteUserVote = gcVoteUserVote
+            it.lonOriginal = lonOriginal
+            it.latOriginal = latOriginal
+            it.images = images.mapTo(arrayListOf()) { img -> img.copy as GeocachingImage }
+            it.source = source
+            it.notesLocalUpdatedAt = notesLocalUpdatedAt
+            it.notesExternal = notesExternal
+            it.notesExternalUpdatedAt = notesExternalUpdatedAt
+        }
+
     override fun getVersion(): Int {
         return 4
     }
@@ -474,15 +519,15 @@ class GeocachingData : Storable() {
         name = dr.readString()
         dateUpdated = dr.readLong()
         dateHidden = dr.readLong()
-        placedBy = dr.readString()
-        owner = dr.readString()
+        placedBy = dr.readStringShared()
+        owner = dr.readStringShared()
         datePublished = dr.readLong()
         type = dr.readInt()
         container = dr.readInt()
         difficulty = dr.readFloat()
         terrain = dr.readFloat()
-        country = dr.readString()
-        state = dr.readString()
+        country = dr.readStringShared()
+        state = dr.readStringShared()
 
         // total length
         val size = dr.readInt()
@@ -542,15 +587,15 @@ class GeocachingData : Storable() {
         dw.writeString(name)
         dw.writeLong(dateUpdated)
         dw.writeLong(dateHidden)
-        dw.writeString(placedBy)
-        dw.writeString(owner)
+        dw.writeStringShared(placedBy)
+        dw.writeStringShared(owner)
         dw.writeLong(datePublished)
         dw.writeInt(type)
         dw.writeInt(container)
         dw.writeFloat(difficulty)
         dw.writeFloat(terrain)
-        dw.writeString(country)
-        dw.writeString(state)
+        dw.writeStringShared(country)
+        dw.writeStringShared(state)
 
         // write listings
         if (descBytes == null || descBytes!!.isEmpty()) {
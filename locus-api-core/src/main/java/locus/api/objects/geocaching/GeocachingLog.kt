@@ -107,7 +107,7 @@ class GeocachingLog : Storable() {
         id = dr.readLong()
         type = dr.readInt()
         date = dr.readLong()
-        finder = dr.readString()
+        finder = dr.readStringShared()
         findersFound = dr.readInt()
         logText = dr.readString()
 
@@ -129,7 +129,7 @@ class GeocachingLog : Storable() {
         dw.writeLong(id)
         dw.writeInt(type)
         dw.writeLong(date)
-        dw.writeString(finder)
+        dw.writeStringShared(finder)
         dw.writeInt(findersFound)
         dw.writeString(logText)
 
@@ -167,6 +167,15 @@ class GeoDataStyle() : Storable() {
     // STORABLE
     //*************************************************
 
+    override val copy: GeoDataStyle
+        get() = GeoDataStyle().also {
+            it.id = id
+            it.name = name
+            it.iconStyle = iconStyle?.copy
+            it.labelStyle = labelStyle?.copy
+            it.lineStyle = lineStyle?.copy
+        }
+
     override fun getVersion(): Int {
         return 2
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012, Asamm Software, s. r. o.
+ *
+ * This file is part of LocusAPI.
+ *
+ * LocusAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the Lesser GNU General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * LocusAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * Lesser GNU General Public License for more details.
+ *
+ * You should have received a copy of the Lesser GNU General Public
+ * License along with LocusAPI. If not, see
+ * <http://www.gnu.org/licenses/lgpl.html/>.
+ */
+
+package locus.api.objects.styles
+
+import locus.api.utils.DataReaderBigEndian
+import locus.api.utils.DataWriterBigEndian
+import java.io.IOException
+import java.util.IdentityHashMap
+
+/**
+ * Dictionary of unique styles shared by all items of a single serialized list.
+ *
+ * When writing, identical styles (same content, not only same instance) are stored only once and
+ * items reference them by index. When reading, every style is decoded only once, so all items
+ * that referenced it share a single instance. Items return the shared style as is and copy it
+ * only in `GeoData.mutableStyleNormal` / `mutableStyleHighlight`, so modification of a style
+ * obtained there never affects the others.
+ */
+class GeoDataStyleTable {
+
+    /**
+     * Key for styles with identical serialized content.
+     */
+    private class ContentKey(private val data: ByteArray) {
+
+        private val hash = data.contentHashCode()
+
+        override fun equals(other: Any?): Boolean {
+            return other is ContentKey && data.contentEquals(other.data)
+        }
+
+        override fun hashCode(): Int {
+            return hash
+        }
+    }
+
+    // list of unique styles
+    private val styles = ArrayList<GeoDataStyle>()
+
+    // indices of already registered instances
+    private val indexByInstance = IdentityHashMap<GeoDataStyle, Int>()
+
+    // indices of already registered content
+    private val indexByContent = HashMap<ContentKey, Int>()
+
+    /**
+     * Number of unique styles in the table.
+     */
+    val size: Int
+        get() = styles.size
+
+    /**
+     * Get index of the style in the table. Style is registered in case, it is not yet known.
+     *
+     * @param style style to register
+     * @return index of the style
+     */
+    fun indexOf(style: GeoDataStyle): Int {
+        // check known instance
+        indexByInstance[style]?.let {
+            return it
+        }
+
+        // check known content
+        val data = style.asBytes
+        val index = if (data != null) {
+            indexByContent.getOrPut(ContentKey(data)) {
+                styles.add(style)
+                styles.size - 1
+            }
+        } else {
+            styles.add(style)
+            styles.size - 1
+        }
+        indexByInstance[style] = index
+        return index
+    }
+
+    /**
+     * Get style stored under certain index.
+     *
+     * @param index index of the style
+     * @return shared style or `null` if index is not valid
+     */
+    fun get(index: Int): GeoDataStyle? {
+        return styles.getOrNull(index)
+    }
+
+    //*************************************************
+    // STORABLE
+    //*************************************************
+
+    /**
+     * Read content of the table from the stream. Any previous content is replaced.
+     *
+     * @param dr data reader
+     */
+    @Throws(IOException::class)
+    fun read(dr: DataReaderBigEndian) {
+        styles.clear()
+        indexByInstance.clear()
+        indexByContent.clear()
+        val count = dr.readInt()
+        for (i in 0 until count) {
+            styles.add(GeoDataStyle().apply { read(dr) })
+        }
+    }
+
+    /**
+     * Write content of the table into the stream.
+     *
+     * @param dw data writer
+     */
+    @Throws(IOException::class)
+    fun write(dw: DataWriterBigEndian) {
+        dw.writeInt(styles.size)
+        for (i in styles.indices) {
+            styles[i].write(dw)
+        }
+    }
+}
@@ -60,6 +60,16 @@ class IconStyle : Storable() {
     // STORABLE PART
     //*************************************************
 
+    @Suppress("DEPRECATION")
+    override val copy: IconStyle
+        get() = IconStyle().also {
+            it.color = color
+            it.scale = scale
+            it.heading = heading
+            it.iconHref = iconHref
+            it.hotSpot = hotSpot
+        }
+
     override fun getVersion(): Int {
         return 0
     }
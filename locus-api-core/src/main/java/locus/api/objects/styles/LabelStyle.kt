@@ -42,6 +42,12 @@ class LabelStyle : Storable() {
     // STORABLE
     //*************************************************
 
+    override val copy: LabelStyle
+        get() = LabelStyle().also {
+            it.color = color
+            it.scale = scale
+        }
+
     override fun getVersion(): Int {
         return 0
     }
@@ -144,6 +144,23 @@ class LineStyle : Storable() {
     // STORABLE
     //*************************************************
 
+    override val copy: LineStyle
+        get() = LineStyle().also {
+            it.drawBase = drawBase
+            it.colorBase = colorBase
+            it.drawSymbol = drawSymbol
+            it.colorSymbol = colorSymbol
+            it.symbol = symbol
+            it.coloring = coloring
+            it.coloringParams.putAll(coloringParams)
+            it.width = width
+            it.units = units
+            it.drawOutline = drawOutline
+            it.colorOutline = colorOutline
+            it.drawFill = drawFill
+            it.colorFill = colorFill
+        }
+
     override fun getVersion(): Int {
         return 0
     }
@@ -22,6 +22,12 @@ abstract class ByteValueMap<V>(initialCapacity: Int = 1) {
 
     internal abstract fun resizeValueCapacity(capacity: Int)
 
+    /**
+     * Release references to values stored on indices from 0 until [count]. Needed only by maps
+     * that store objects.
+     */
+    internal open fun releaseValues(count: Int) {}
+
     var size: Byte = 0
         private set
 
@@ -57,6 +63,15 @@ abstract class ByteValueMap<V>(initialCapacity: Int = 1) {
         }
     }
 
+    /**
+     * Remove all values from the map. Already allocated capacity is kept, so the map may be
+     * filled again without new allocations.
+     */
+    fun clear() {
+        releaseValues(size.toInt())
+        size = 0
+    }
+
     fun containsKey(key: Byte): Boolean {
         return indexOfKey(key) >= 0
     }
@@ -143,6 +158,10 @@ class ByteByteMap(initialCapacity: Int = 1) : ByteValueMap<ByteArray>(initialCap
     override fun resizeValueCapacity(capacity: Int) {
         byteValues = byteValues.copyOf(capacity)
     }
+
+    override fun releaseValues(count: Int) {
+        byteValues.fill(null, 0, count)
+    }
 }
 
 
@@ -222,4 +241,8 @@ class ByteStringMap(initialCapacity: Int = 1) : ByteValueMap<String>(initialCapa
     override fun resizeValueCapacity(capacity: Int) {
         stringValues = stringValues.copyOf(capacity)
     }
+
+    override fun releaseValues(count: Int) {
+        stringValues.fill(null, 0, count)
+    }
 }
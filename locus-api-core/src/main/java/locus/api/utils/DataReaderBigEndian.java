@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import locus.api.objects.Storable;
+import locus.api.objects.styles.GeoDataStyleTable;
 
 public class DataReaderBigEndian {
 
@@ -19,6 +20,14 @@ public class DataReaderBigEndian {
     private int mPosition;
     // buffer with data
     private final byte[] mBuffer;
+    // start of readable data in buffer
+    private final int mStart;
+    // end (exclusive) of readable data in buffer
+    private final int mEnd;
+    // dictionary of styles shared by currently read list items
+    private GeoDataStyleTable mStyleTable;
+    // dictionary of texts shared by currently read list items
+    private DataStringTable mStringTable;
 
     public DataReaderBigEndian(byte[] data) throws IOException {
         if (data == null) {
@@ -26,6 +35,20 @@ public class DataReaderBigEndian {
         }
         this.mPosition = 0;
         this.mBuffer = data;
+        this.mStart = 0;
+        this.mEnd = data.length;
+    }
+
+    /**
+     * Create reader for the nested part of the parent buffer. Data are shared, not copied.
+     */
+    private DataReaderBigEndian(DataReaderBigEndian parent, int start, int end) {
+        this.mBuffer = parent.mBuffer;
+        this.mStart = start;
+        this.mEnd = end;
+        this.mPosition = start;
+        this.mStyleTable = parent.mStyleTable;
+        this.mStringTable = parent.mStringTable;
     }
 
     /**
@@ -34,7 +57,7 @@ public class DataReaderBigEndian {
      * @return length of stream
      */
     public long length() {
-        return mBuffer.length;
+        return mEnd - mStart;
     }
 
     /**
@@ -43,7 +66,16 @@ public class DataReaderBigEndian {
      * @return number of available bytes
      */
     public int available() {
-        return mBuffer.length - mPosition;
+        return mEnd - mPosition;
+    }
+
+    /**
+     * Get current position of the cursor.
+     *
+     * @return current position
+     */
+    public int getPosition() {
+        return mPosition - mStart;
     }
 
     /**
@@ -52,7 +84,39 @@ public class DataReaderBigEndian {
      * @param pos position where to move
      */
     public void seek(int pos) {
-        mPosition = pos;
+        mPosition = mStart + pos;
+    }
+
+    /**
+     * Get dictionary of styles shared by currently read list items.
+     *
+     * @return dictionary or 'null' if styles are stored directly in every item
+     */
+    public GeoDataStyleTable getStyleTable() {
+        return mStyleTable;
+    }
+
+    /**
+     * Get dictionary of texts shared by currently read list items.
+     *
+     * @return dictionary or 'null' if texts are stored directly
+     */
+    public DataStringTable getStringTable() {
+        return mStringTable;
+    }
+
+    /**
+     * Create reader for the next {@code length} bytes (usually body of the Storable object)
+     * and move this reader behind them. Nested reader shares data buffer and context (like
+     * dictionary of styles) with this reader, so no data are copied. Position of the nested
+     * reader starts at '0'.
+     *
+     * @param length number of bytes available to the nested reader
+     * @return nested reader
+     */
+    public DataReaderBigEndian readNested(int length) {
+        checkPosition(length);
+        return new DataReaderBigEndian(this, mPosition - length, mPosition);
     }
 
     // READ FUNCTIONS
@@ -125,11 +189,58 @@ public class DataReaderBigEndian {
             return "";
         } else {
             checkPosition(textLength);
+            // platform decoder already has fast path for ASCII texts
             return new String(mBuffer,
                     mPosition - textLength, textLength, StandardCharsets.UTF_8);
         }
     }
 
+    /**
+     * Read text written by {@link DataWriterBigEndian#writeString(String)}. In case, read text
+     * is equal to the {@code current} value, no new instance is created and current value is
+     * returned. Useful for repeatedly read objects, where texts change only rarely.
+     *
+     * @param current current value
+     * @return read text
+     */
+    public String readString(String current) {
+        int textLength = readInt();
+        if (textLength == 0) {
+            return "";
+        }
+        checkPosition(textLength);
+        if (current != null
+                && Utf8.contentEquals(mBuffer, mPosition - textLength, textLength, current)) {
+            return current;
+        }
+        return new String(mBuffer,
+                mPosition - textLength, textLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read text written by {@link DataWriterBigEndian#writeString(String)} as a view into
+     * the data buffer. Text is not decoded, until it is really needed, which is useful
+     * in case, text is only compared with known values.
+     *
+     * @return view on the text
+     */
+    public Utf8View readStringView() {
+        int textLength = readInt();
+        checkPosition(textLength);
+        return new Utf8View(mBuffer, mPosition - textLength, textLength);
+    }
+
+    /**
+     * Read text written by {@link DataWriterBigEndian#writeStringShared(String)}.
+     */
+    public String readStringShared() {
+        if (mStringTable == null) {
+            return readString();
+        } else {
+            return mStringTable.get(readInt());
+        }
+    }
+
     /**
      * This method simulate method from DataInputStream. Useful only for older
      * Storable instances, that wrote text with method:
@@ -159,6 +270,19 @@ public class DataReaderBigEndian {
         return Storable.Companion.read(claz, this);
     }
 
+    /**
+     * Read Storable object into existing instance.
+     *
+     * @param claz class parameter
+     * @param into existing object to reuse or 'null' to create a new one
+     * @param <E>  class type
+     * @return loaded Storable class
+     */
+    public <E extends Storable> E readStorable(Class<E> claz, E into)
+            throws InstantiationException, IllegalAccessException, IOException {
+        return Storable.Companion.read(claz, this, into);
+    }
+
     // LIST TOOLS
 
     public List<String> readListString() {
@@ -185,6 +309,9 @@ public class DataReaderBigEndian {
 
         // read size
         int count = readInt();
+        if (count == DataWriterBigEndian.LIST_COMPACT_MARKER) {
+            return readListStorableCompact(claz);
+        }
         if (count == 0) {
             return objs;
         }
@@ -205,14 +332,69 @@ public class DataReaderBigEndian {
         return objs;
     }
 
+    /**
+     * Read list written by {@link DataWriterBigEndian#writeListStorableCompact(List)}. Marker
+     * of the list is already read.
+     */
+    private <E extends Storable> List<E> readListStorableCompact(Class<E> claz)
+            throws IOException {
+        // read header
+        int version = readInt();
+        if (version < 1 || version > DataWriterBigEndian.LIST_COMPACT_VERSION) {
+            throw new IOException("Unsupported version of compact list: " + version);
+        }
+        int count = readInt();
+        int itemsSize = readInt();
+        int itemsStart = getPosition();
+
+        // read dictionaries stored behind the items
+        GeoDataStyleTable styleTable = new GeoDataStyleTable();
+        DataStringTable stringTable = new DataStringTable();
+        seek(itemsStart + itemsSize);
+        styleTable.read(this);
+        if (version >= 2) {
+            stringTable.read(this);
+        }
+        int end = getPosition();
+
+        // read items with shared dictionaries
+        seek(itemsStart);
+        GeoDataStyleTable styleTableOld = mStyleTable;
+        DataStringTable stringTableOld = mStringTable;
+        mStyleTable = styleTable;
+        mStringTable = version >= 2 ? stringTable : null;
+        List<E> objs = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                //noinspection TryWithIdenticalCatches
+                try {
+                    E item = claz.newInstance();
+                    item.read(this);
+                    objs.add(item);
+                } catch (InstantiationException e) {
+                    LogKt.logE(LogCategory.Companion.getCORE(), TAG, e, () -> "readListCompact(" + claz + ")");
+                } catch (IllegalAccessException e) {
+                    LogKt.logE(LogCategory.Companion.getCORE(), TAG, e, () -> "readListCompact(" + claz + ")");
+                }
+            }
+        } finally {
+            mStyleTable = styleTableOld;
+            mStringTable = stringTableOld;
+        }
+
+        // move behind the whole list
+        seek(end);
+        return objs;
+    }
+
     // PRIVATE TOOLS
 
     private void checkPosition(int increment) {
         mPosition += increment;
-        if (mPosition > mBuffer.length) {
+        if (mPosition > mEnd) {
             throw new ArrayIndexOutOfBoundsException("Invalid position for data load. " +
-                    "Current:" + mPosition + ", " +
-                    "length:" + mBuffer.length + ", " +
+                    "Current:" + getPosition() + ", " +
+                    "length:" + length() + ", " +
                     "increment:" + increment);
         }
     }
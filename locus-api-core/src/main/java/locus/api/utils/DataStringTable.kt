@@ -0,0 +1,85 @@
+package locus.api.utils
+
+import java.io.IOException
+
+/**
+ * Dictionary of texts shared by all items of a single serialized list.
+ *
+ * Writer registers texts that commonly repeat across items (providers, owner names, ...) and
+ * writes only their index. Reader decodes every text only once, so all items that referenced it
+ * share a single [String] instance.
+ *
+ * **Thread Safety:**  This class is not thread-safe!
+ */
+class DataStringTable {
+
+    // list of unique texts
+    private val texts = ArrayList<String>()
+
+    // indices of already registered texts
+    private val indices = HashMap<String, Int>()
+
+    /**
+     * Number of unique texts in the table.
+     */
+    val size: Int
+        get() = texts.size
+
+    /**
+     * Get index of the text in the table. Text is registered in case, it is not yet known.
+     *
+     * @param text text to register
+     * @return index of the text or `-1` for empty text
+     */
+    fun indexOf(text: String?): Int {
+        if (text.isNullOrEmpty()) {
+            return -1
+        }
+        return indices.getOrPut(text) {
+            texts.add(text)
+            texts.size - 1
+        }
+    }
+
+    /**
+     * Get text stored under certain index.
+     *
+     * @param index index of the text
+     * @return shared text or empty text if index is not valid
+     */
+    fun get(index: Int): String {
+        return texts.getOrNull(index) ?: ""
+    }
+
+    //*************************************************
+    // STORABLE
+    //*************************************************
+
+    /**
+     * Read content of the table from the stream. Any previous content is replaced.
+     *
+     * @param dr data reader
+     */
+    @Throws(IOException::class)
+    fun read(dr: DataReaderBigEndian) {
+        texts.clear()
+        indices.clear()
+        val count = dr.readInt()
+        for (i in 0 until count) {
+            texts.add(dr.readString())
+        }
+    }
+
+    /**
+     * Write content of the table into the stream.
+     *
+     * @param dw data writer
+     */
+    @Throws(IOException::class)
+    fun write(dw: DataWriterBigEndian) {
+        dw.writeInt(texts.size)
+        for (i in texts.indices) {
+            dw.writeString(texts[i])
+        }
+    }
+}
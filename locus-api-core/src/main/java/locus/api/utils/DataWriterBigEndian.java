@@ -2,15 +2,35 @@ package locus.api.utils;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
 import locus.api.objects.Storable;
+import locus.api.objects.styles.GeoDataStyleTable;
 
 @SuppressWarnings("PointlessBitwiseExpression")
 public class DataWriterBigEndian {
 
+    /**
+     * Marker that replaces item count at the start of the list in the compact format.
+     */
+    public static final int LIST_COMPACT_MARKER = 0x8000_4C43;
+    /**
+     * Current version of the compact list format.
+     * <ul>
+     * <li>1 - shared dictionary of styles</li>
+     * <li>2 - shared dictionary of texts</li>
+     * </ul>
+     */
+    static final int LIST_COMPACT_VERSION = 2;
+    /**
+     * Maximal length of texts encoded directly into the buffer. Longer texts use platform
+     * encoder, which is faster for bulk data.
+     */
+    private static final int DIRECT_ENCODE_MAX_LENGTH = 16;
+
     /**
      * The buffer where data is stored.
      */
@@ -28,6 +48,14 @@ public class DataWriterBigEndian {
      *
      */
     private int mSavedPos;
+    /**
+     * Dictionary of styles shared by currently written list items.
+     */
+    private GeoDataStyleTable mStyleTable;
+    /**
+     * Dictionary of texts shared by currently written list items.
+     */
+    private DataStringTable mStringTable;
 
     /**
      * Creates a new data array output stream. The buffer capacity is
@@ -117,6 +145,26 @@ public class DataWriterBigEndian {
         }
     }
 
+    // CONTEXT
+
+    /**
+     * Get dictionary of styles shared by currently written list items.
+     *
+     * @return dictionary or 'null' if styles are written directly to every item
+     */
+    public GeoDataStyleTable getStyleTable() {
+        return mStyleTable;
+    }
+
+    /**
+     * Get dictionary of texts shared by currently written list items.
+     *
+     * @return dictionary or 'null' if texts are written directly
+     */
+    public DataStringTable getStringTable() {
+        return mStringTable;
+    }
+
     // WORK WITH POSITION
 
     /**
@@ -273,9 +321,24 @@ public class DataWriterBigEndian {
         writeLong(Double.doubleToLongBits(v));
     }
 
+    /**
+     * Write text encoded in UTF-8, prefixed by its length in bytes. Short texts (names,
+     * providers, keys) are encoded directly into the internal buffer, without intermediate
+     * byte array. Longer texts use the platform encoder, which is faster for bulk data.
+     *
+     * @param string text to write
+     */
     public final void writeString(String string) throws IOException {
         if (string == null || string.isEmpty()) {
             writeInt(0);
+        } else if (string.length() <= DIRECT_ENCODE_MAX_LENGTH) {
+            int length = Utf8.encodedLength(string);
+            synchronized (this) {
+                writeInt(length);
+                ensureCapacity(mCurrentPos + length);
+                Utf8.encode(string, mBuf, mCurrentPos);
+                setNewPositions(length);
+            }
         } else {
             byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
             writeInt(bytes.length);
@@ -283,6 +346,21 @@ public class DataWriterBigEndian {
         }
     }
 
+    /**
+     * Write text that is expected to repeat across items of the list (like providers or names
+     * of authors). In case, list is written in the compact format, only reference to the shared
+     * dictionary is written. Value has to be read by {@link DataReaderBigEndian#readStringShared()}.
+     *
+     * @param string text to write
+     */
+    public final void writeStringShared(String string) throws IOException {
+        if (mStringTable == null) {
+            writeString(string);
+        } else {
+            writeInt(mStringTable.indexOf(string));
+        }
+    }
+
     @Deprecated
     public final void writeStringDos(String string) {
         if (string == null || string.isEmpty()) {
@@ -338,6 +416,61 @@ public class DataWriterBigEndian {
         }
     }
 
+    /**
+     * Write list of items in the compact format. Styles and shared texts used by items are
+     * written only once in the shared dictionaries and items only reference them.
+     * <br><br>
+     * Compact list may be read only by {@link DataReaderBigEndian#readListStorable(Class)} of
+     * the API version that supports it. Older readers see such list as empty!
+     *
+     * @param objs list of items
+     */
+    public void writeListStorableCompact(List<? extends Storable> objs) throws IOException {
+        // get size of list
+        int size;
+        if (objs == null) {
+            size = 0;
+        } else {
+            size = objs.size();
+        }
+
+        // write header
+        writeInt(LIST_COMPACT_MARKER);
+        writeInt(LIST_COMPACT_VERSION);
+        writeInt(size);
+
+        // write empty size of items block
+        writeInt(0);
+        int startSize = size();
+
+        // write objects
+        GeoDataStyleTable styleTableOld = mStyleTable;
+        DataStringTable stringTableOld = mStringTable;
+        GeoDataStyleTable styleTable = new GeoDataStyleTable();
+        DataStringTable stringTable = new DataStringTable();
+        mStyleTable = styleTable;
+        mStringTable = stringTable;
+        try {
+            for (int i = 0; i < size; i++) {
+                objs.get(i).write(this);
+            }
+        } finally {
+            mStyleTable = styleTableOld;
+            mStringTable = stringTableOld;
+        }
+
+        // return back and write size of items block
+        int totalSize = size() - startSize;
+        storePosition();
+        moveTo(startSize - 4);
+        writeInt(totalSize);
+        restorePosition();
+
+        // write dictionaries
+        styleTable.write(this);
+        stringTable.write(this);
+    }
+
     // VARIOUS TOOLS
 
     /**
@@ -352,6 +485,17 @@ public class DataWriterBigEndian {
         out.write(mBuf, 0, mCount);
     }
 
+    /**
+     * Writes the complete contents of this writer into the buffer (for example memory mapped
+     * region), without creating an intermediate byte array.
+     *
+     * @param out the buffer to which to write the data.
+     * @throws java.nio.BufferOverflowException if there is insufficient space in the buffer.
+     */
+    public synchronized void writeTo(ByteBuffer out) {
+        out.put(mBuf, 0, mCount);
+    }
+
     /**
      * Creates a newly allocated byte array. Its size is the current
      * size of this output stream and the valid contents of the buffer
@@ -364,6 +508,17 @@ public class DataWriterBigEndian {
         return Arrays.copyOf(mBuf, mCount);
     }
 
+    /**
+     * Creates a newly allocated byte array with the valid contents of the buffer, starting
+     * at defined offset.
+     *
+     * @param from offset of the first copied byte
+     * @return the current contents of this output stream since <code>from</code>.
+     */
+    public synchronized byte[] toByteArray(int from) {
+        return Arrays.copyOfRange(mBuf, from, mCount);
+    }
+
     /**
      * Returns the current size of the buffer.
      *
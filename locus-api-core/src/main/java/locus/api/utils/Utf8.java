@@ -0,0 +1,174 @@
+package locus.api.utils;
+
+/**
+ * Allocation-free tools for UTF-8 encoding used by data readers and writers.
+ * <br><br>
+ * Produced bytes are identical to {@code String.getBytes(StandardCharsets.UTF_8)}, including
+ * replacement of unpaired surrogates by '?' character.
+ */
+final class Utf8 {
+
+    private Utf8() {
+    }
+
+    /**
+     * Compute number of bytes required to encode text in UTF-8.
+     *
+     * @param text text to measure
+     * @return length of encoded text in bytes
+     */
+    static int encodedLength(CharSequence text) {
+        int n = text.length();
+        int length = n;
+        int i = 0;
+
+        // ASCII fast path
+        while (i < n && text.charAt(i) < 0x80) {
+            i++;
+        }
+
+        // rest of the text
+        for (; i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c)
+                        && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    // 4 bytes for 2 chars
+                    length += 2;
+                    i++;
+                }
+                // unpaired surrogate is replaced by single '?'
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Encode text into UTF-8 directly into the target array. Array has to be big enough
+     * to hold {@link #encodedLength(CharSequence)} bytes.
+     *
+     * @param text   text to encode
+     * @param dst    target array
+     * @param offset offset in the target array
+     * @return position in the target array behind the encoded text
+     */
+    static int encode(CharSequence text, byte[] dst, int offset) {
+        int n = text.length();
+        int i = 0;
+
+        // ASCII fast path
+        for (; i < n; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            dst[offset++] = (byte) c;
+        }
+
+        // rest of the text
+        for (; i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                dst[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[offset++] = (byte) (0xC0 | (c >> 6));
+                dst[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c)
+                        && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    dst[offset++] = (byte) (0xF0 | (cp >> 18));
+                    dst[offset++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    dst[offset++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    dst[offset++] = (byte) (0x80 | (cp & 0x3F));
+                } else {
+                    dst[offset++] = (byte) '?';
+                }
+            } else {
+                dst[offset++] = (byte) (0xE0 | (c >> 12));
+                dst[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Check if data contains only ASCII characters.
+     *
+     * @param data   source data
+     * @param offset offset of the text
+     * @param length length of the text in bytes
+     * @return {@code true} if all bytes are ASCII characters
+     */
+    static boolean isAscii(byte[] data, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if (data[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare encoded UTF-8 text with the text, without decoding it.
+     *
+     * @param data   source data
+     * @param offset offset of the encoded text
+     * @param length length of the encoded text in bytes
+     * @param text   text to compare with
+     * @return {@code true} if encoded text is equal to the text
+     */
+    static boolean contentEquals(byte[] data, int offset, int length, CharSequence text) {
+        int n = text.length();
+        if (n > length) {
+            // every char needs at least one byte
+            return false;
+        }
+        int pos = offset;
+        int end = offset + length;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (pos >= end || data[pos++] != (byte) c) {
+                    return false;
+                }
+            } else if (c < 0x800) {
+                if (pos + 2 > end
+                        || data[pos++] != (byte) (0xC0 | (c >> 6))
+                        || data[pos++] != (byte) (0x80 | (c & 0x3F))) {
+                    return false;
+                }
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c)
+                        && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    if (pos + 4 > end
+                            || data[pos++] != (byte) (0xF0 | (cp >> 18))
+                            || data[pos++] != (byte) (0x80 | ((cp >> 12) & 0x3F))
+                            || data[pos++] != (byte) (0x80 | ((cp >> 6) & 0x3F))
+                            || data[pos++] != (byte) (0x80 | (cp & 0x3F))) {
+                        return false;
+                    }
+                } else if (pos >= end || data[pos++] != (byte) '?') {
+                    return false;
+                }
+            } else {
+                if (pos + 3 > end
+                        || data[pos++] != (byte) (0xE0 | (c >> 12))
+                        || data[pos++] != (byte) (0x80 | ((c >> 6) & 0x3F))
+                        || data[pos++] != (byte) (0x80 | (c & 0x3F))) {
+                    return false;
+                }
+            }
+        }
+        return pos == end;
+    }
+}
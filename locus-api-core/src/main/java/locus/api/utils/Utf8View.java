@@ -0,0 +1,105 @@
+package locus.api.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view on the UTF-8 encoded text stored in the data buffer.
+ * <br><br>
+ * Text is not decoded until it is really needed, so view is useful in cases, when text
+ * is only compared with a known value (see {@link #contentEquals(CharSequence)}). View keeps
+ * reference to the source buffer, so it should not be kept longer than the source data.
+ */
+public final class Utf8View implements CharSequence {
+
+    // source data
+    private final byte[] mData;
+    // offset of the text in data
+    private final int mOffset;
+    // length of encoded text in bytes
+    private final int mLength;
+    // flag if text contains only ASCII characters (1 byte == 1 char)
+    private final boolean mAscii;
+    // lazily decoded text
+    private String mDecoded;
+
+    Utf8View(byte[] data, int offset, int length) {
+        this.mData = data;
+        this.mOffset = offset;
+        this.mLength = length;
+        this.mAscii = Utf8.isAscii(data, offset, length);
+    }
+
+    /**
+     * Get length of the encoded text in bytes.
+     *
+     * @return length in bytes
+     */
+    public int byteLength() {
+        return mLength;
+    }
+
+    /**
+     * Check if view contains the same text, without decoding it.
+     *
+     * @param text text to compare
+     * @return {@code true} if text is equal
+     */
+    public boolean contentEquals(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        if (mDecoded != null) {
+            return mDecoded.contentEquals(text);
+        }
+        return Utf8.contentEquals(mData, mOffset, mLength, text);
+    }
+
+    @Override
+    public int length() {
+        return mAscii ? mLength : decoded().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (mAscii) {
+            if (index < 0 || index >= mLength) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", length: " + mLength);
+            }
+            return (char) mData[mOffset + index];
+        }
+        return decoded().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (mAscii) {
+            if (start < 0 || end > mLength || start > end) {
+                throw new IndexOutOfBoundsException(
+                        "Start: " + start + ", end: " + end + ", length: " + mLength);
+            }
+            return new Utf8View(mData, mOffset + start, end - start);
+        }
+        return decoded().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return decoded();
+    }
+
+    /**
+     * Decode the text. Result is cached.
+     */
+    private String decoded() {
+        if (mDecoded == null) {
+            if (mLength == 0) {
+                mDecoded = "";
+            } else if (mAscii) {
+                mDecoded = new String(mData, mOffset, mLength, StandardCharsets.ISO_8859_1);
+            } else {
+                mDecoded = new String(mData, mOffset, mLength, StandardCharsets.UTF_8);
+            }
+        }
+        return mDecoded;
+    }
+}
@@ -8,8 +8,8 @@ import android.widget.TextView
 import androidx.fragment.app.FragmentActivity
 import com.asamm.locus.api.sample.utils.SampleCalls
 import com.asamm.loggerV2.logW
-import locus.api.android.ActionBasics
 import locus.api.android.features.periodicUpdates.UpdateContainer
+import locus.api.android.features.periodicUpdates.UpdateContainerSubscription
 import locus.api.android.objects.LocusVersion
 import locus.api.android.utils.LocusUtils
 import java.text.SimpleDateFormat
@@ -17,7 +17,7 @@ import java.util.*
 import java.util.concurrent.TimeUnit
 
 /**
- * Sample activity that display method, how to periodically fetch base data from Locus Map
+ * Sample activity that display method, how to subscribe for base data from Locus Map
  * and display it, in this case, for example as simple dashboard.
  */
 class ActivityDashboard : FragmentActivity() {
@@ -28,10 +28,11 @@ class ActivityDashboard : FragmentActivity() {
     // refresh interval (in ms)
     private val refreshInterval = TimeUnit.SECONDS.toMillis(1)
 
-    // refresh task itself
-    private val refresh: (() -> Unit) = {
-        refreshContent()
-    }
+    // active subscription for updates
+    private var subscription: UpdateContainerSubscription? = null
+
+    // flag if activity is started
+    private var started = false
 
     // text containers
     private lateinit var tvInfo: TextView
@@ -62,40 +63,44 @@ class ActivityDashboard : FragmentActivity() {
 
     public override fun onStart() {
         super.onStart()
+        started = true
 
-        // start refresh
-        handler.post(refresh)
+        // find Locus and subscribe for updates
+        Thread {
+            val lv = LocusUtils.getActiveVersion(this)
+            handler.post {
+                if (lv == null) {
+                    handleUpdate(null, null)
+                    logW(tag = TAG) { "onStart(), unable to obtain `ActiveVersion`" }
+                } else if (started) {
+                    subscribe(lv)
+                }
+            }
+        }.start()
     }
 
     public override fun onStop() {
         super.onStop()
+        started = false
 
-        // stop refresh flow
-        handler.removeCallbacks(refresh)
+        // stop updates
+        subscription?.stop()
+        subscription = null
     }
 
     /**
-     * Perform refresh and request another update after defined interval.
+     * Subscribe for updates of values visible on the dashboard only.
      */
-    private fun refreshContent() {
-        try {
-            Thread {
-                LocusUtils.getActiveVersion(this)?.let { lv ->
-                    ActionBasics.getUpdateContainer(this, lv)?.let { uc ->
-                        handleUpdate(lv, uc)
-                    } ?: run {
-                        handleUpdate(lv, null)
-                        logW(tag = TAG) { "refreshContent(), unable to obtain `UpdateContainer`" }
-                    }
-                } ?: run {
-                    handleUpdate(null, null)
-                    logW(tag = TAG) { "refreshContent(), unable to obtain `ActiveVersion`" }
-                }
-
-            }.start()
-        } finally {
-            handler.postDelayed(refresh, refreshInterval)
-        }
+    private fun subscribe(lv: LocusVersion) {
+        subscription?.stop()
+        subscription = UpdateContainerSubscription(
+            this, lv,
+            UpdateContainer.FIELD_GROUP_LOCATION or UpdateContainer.FIELD_GROUP_MAP or
+                    UpdateContainer.FIELD_GROUP_VARIOUS,
+            refreshInterval
+        ) { uc, _ ->
+            handleUpdate(lv, uc)
+        }.apply { start() }
     }
 
     /**
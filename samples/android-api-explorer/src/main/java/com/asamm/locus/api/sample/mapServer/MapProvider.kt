@@ -1,7 +1,7 @@
 package com.asamm.locus.api.sample.mapServer
 
-import android.graphics.BitmapFactory
 import com.asamm.loggerV2.logE
+import locus.api.android.features.mapProvider.MapTileCache
 import locus.api.android.features.mapProvider.MapTileService
 import locus.api.android.features.mapProvider.data.MapConfigLayer
 import locus.api.android.features.mapProvider.data.MapTileRequest
@@ -20,6 +20,9 @@ class MapProvider : MapTileService() {
     override val mapConfigs: List<MapConfigLayer>
         get() = generateMapConfig()
 
+    // keep loaded tiles in memory, so assets are not read on every request
+    override val tileCache = MapTileCache(4 * 1024 * 1024)
+
     override fun getMapTile(request: MapTileRequest): MapTileResponse {
         return loadMapTile(request)
     }
@@ -78,16 +81,10 @@ class MapProvider : MapTileService() {
             return resp
         }
 
-        // convert to bitmap
-        val img = BitmapFactory.decodeByteArray(tileData, 0, tileData.size)
-        return if (img == null) {
-            resp.resultCode = MapTileResponse.CODE_INTERNAL_ERROR
-            resp
-        } else {
-            resp.resultCode = MapTileResponse.CODE_VALID
-            resp.image = img
-            resp
-        }
+        // pass encoded data without decoding
+        resp.resultCode = MapTileResponse.CODE_VALID
+        resp.setImageData(tileData, MapTileResponse.FORMAT_JPEG)
+        return resp
     }
 
     private fun loadMapTile(name: String): ByteArray? {
@@ -5,6 +5,8 @@
 package com.asamm.locus.api.sample.computetrack
 
 import android.content.Intent
+import locus.api.android.features.computeTrack.ComputeTrackCache
+import locus.api.android.features.computeTrack.ComputeTrackLegEmitter
 import locus.api.android.features.computeTrack.ComputeTrackParameters
 import locus.api.android.features.computeTrack.ComputeTrackService
 import locus.api.android.objects.LocusVersion
@@ -36,6 +38,10 @@ import kotlin.math.sin
  * - emit turn-by-turn instructions as [Point] waypoints carrying the maneuver ([PointRteAction])
  *   and the geometry index it happens at ([Point.parameterRteIndex]).
  *
+ * Newer Locus versions request the route progressively over [computeTrackLegs]: the sample then
+ * sends every leg (the part between two consecutive via-points) as soon as it is computed, so
+ * Locus shows the route while the rest is still being computed.
+ *
  * It deliberately does **not** compute track statistics or per-waypoint distance / time: Locus
  * rebuilds those from the geometry when it validates the received track (see [computeTrack]).
  *
@@ -70,6 +76,12 @@ class WavyRouteService : ComputeTrackService() {
     override val intentForSettings: Intent
         get() = Intent(this, InfoActivity::class.java)
 
+    /**
+     * Repeated requests for the same via-points (within 5 m) are answered from memory for
+     * 10 minutes, without calling [computeTrack] again.
+     */
+    override val trackCache = ComputeTrackCache(1024 * 1024, 10 * 60 * 1000L)
+
     override fun computeTrack(lv: LocusVersion?, params: ComputeTrackParameters): Track? {
         val vias = params.locations
         // Locus guarantees >= 2 via-points (start + end), but a provider must never trust the
@@ -109,6 +121,50 @@ class WavyRouteService : ComputeTrackService() {
         return track
     }
 
+    /**
+     * Progressive variant of [computeTrack]: one leg per pair of consecutive via-points, each
+     * sent to Locus as soon as it is ready. Every leg starts and ends at its via-points (Locus
+     * joins them) and carries the maneuver at its start via-point; the last leg carries the
+     * arrival too.
+     */
+    override fun computeTrackLegs(
+        lv: LocusVersion?,
+        params: ComputeTrackParameters,
+        emitter: ComputeTrackLegEmitter,
+    ): Boolean {
+        val vias = params.locations
+        if (vias.size < 2) {
+            return false
+        }
+
+        val legCount = vias.size - 1
+        for (i in 0 until legCount) {
+            val geometry = ArrayList<Location>(WAVE_STEPS + 1)
+            geometry.add(vias[i])
+            geometry.addAll(wavySegment(vias[i], vias[i + 1]))
+            geometry.add(vias[i + 1])
+
+            val leg = Track().apply {
+                name = "Wavy route, leg ${i + 1}/$legCount"
+                points = geometry
+                parameterRteComputeType = params.type
+            }
+            if (params.isComputeInstructions) {
+                val waypoints = arrayListOf(createManeuver(vias, i, 0, params))
+                if (i == legCount - 1) {
+                    waypoints.add(createManeuver(vias, vias.size - 1, geometry.size - 1, params))
+                }
+                leg.waypoints = waypoints
+            }
+
+            // stop once Locus is gone, there is nobody to send the rest to
+            if (!emitter.emitLeg(i, legCount, leg)) {
+                return false
+            }
+        }
+        return true
+    }
+
     /**
      * One navigation [Point] per via-point. Each carries the maneuver to perform there and the
      * index into [Track.points] where it happens.
@@ -120,36 +176,48 @@ class WavyRouteService : ComputeTrackService() {
     ): MutableList<Point> {
         val waypoints = ArrayList<Point>(vias.size)
         for (i in vias.indices) {
-            val action = when (i) {
-                // Departure. If Locus supplied the user's current heading, the first instruction
-                // is the turn from that heading onto leg 0; otherwise just "head out".
-                0 -> {
-                    if (params.hasDirection) {
-                        PointRteAction.getActionByAngle(
-                            normalizeDeg(vias[0].bearingTo(vias[1]) - params.currentDirection),
-                        )
-                    } else {
-                        PointRteAction.CONTINUE_STRAIGHT
-                    }
+            waypoints.add(createManeuver(vias, i, maneuverIndices[i], params))
+        }
+        return waypoints
+    }
+
+    /**
+     * Navigation [Point] for via-point [index], placed at trackpoint [rteIndex].
+     */
+    private fun createManeuver(
+        vias: Array<Location>,
+        index: Int,
+        rteIndex: Int,
+        params: ComputeTrackParameters,
+    ): Point {
+        val action = when (index) {
+            // Departure. If Locus supplied the user's current heading, the first instruction
+            // is the turn from that heading onto leg 0; otherwise just "head out".
+            0 -> {
+                if (params.hasDirection) {
+                    PointRteAction.getActionByAngle(
+                        normalizeDeg(vias[0].bearingTo(vias[1]) - params.currentDirection),
+                    )
+                } else {
+                    PointRteAction.CONTINUE_STRAIGHT
                 }
-                // Arrival.
-                vias.size - 1 -> PointRteAction.ARRIVE_DEST
-                // Interior via-point: turn from the incoming leg onto the outgoing leg.
-                else -> PointRteAction.getActionByAngle(
-                    normalizeDeg(vias[i].bearingTo(vias[i + 1]) - vias[i - 1].bearingTo(vias[i])),
-                )
             }
-
-            // The two fields Locus keeps verbatim: the maneuver, and the index of the trackpoint
-            // it happens at. Everything else on the waypoint is recomputed, so nothing else is set.
-            waypoints.add(
-                Point("Maneuver $i", vias[i]).apply {
-                    parameterRteIndex = maneuverIndices[i]
-                    parameterRteAction = action
-                },
+            // Arrival.
+            vias.size - 1 -> PointRteAction.ARRIVE_DEST
+            // Interior via-point: turn from the incoming leg onto the outgoing leg.
+            else -> PointRteAction.getActionByAngle(
+                normalizeDeg(
+                    vias[index].bearingTo(vias[index + 1]) - vias[index - 1].bearingTo(vias[index]),
+                ),
             )
         }
-        return waypoints
+
+        // The two fields Locus keeps verbatim: the maneuver, and the index of the trackpoint
+        // it happens at. Everything else on the waypoint is recomputed, so nothing else is set.
+        return Point("Maneuver $index", vias[index]).apply {
+            parameterRteIndex = rteIndex
+            parameterRteAction = action
+        }
     }
 
     /**
@@ -7,9 +7,13 @@ package com.asamm.locus.api.sample.sensoradapter
 import locus.api.android.features.sensorAdapter.AdapterApi
 import locus.api.android.features.sensorAdapter.LocusBindContext
 import locus.api.android.features.sensorAdapter.LocusVariable
+import locus.api.android.features.sensorAdapter.parser.AdapterSession
+import locus.api.android.features.sensorAdapter.parser.DelimiterFramer
 import locus.api.android.features.sensorAdapter.parser.LocusParserAdapterService
+import locus.api.android.features.sensorAdapter.parser.NmeaTokenizer
+import locus.api.android.features.sensorAdapter.parser.SensorSampleBuffer
 import locus.api.android.features.sensorAdapter.parser.SensorValueBatch
-import locus.api.android.features.sensorAdapter.parser.SensorValueBatchBuilder
+import kotlin.math.roundToLong
 
 /**
  * Sample Locus parser-style adapter for an NMEA GNSS receiver over a serial byte stream — the
@@ -21,22 +25,42 @@ import locus.api.android.features.sensorAdapter.parser.SensorValueBatchBuilder
  *
  * A serial stream is undifferentiated bytes — `source` is empty and one [parseData] call carries
  * whatever bytes have arrived since the last: a partial NMEA line, exactly one, or several. The
- * contract puts frame reassembly on the adapter, so this one buffers per device and parses only
- * complete `\n`-terminated lines, carrying any trailing partial into the next call. Don't assume a
+ * contract puts frame reassembly on the adapter, so this one buffers per device in a
+ * [DelimiterFramer] and parses only complete `\n`-terminated lines by [NmeaTokenizer], carrying
+ * any trailing partial into the next call. Don't assume a
  * call equals a line — that's the mistake this sample exists to not make.
  *
  * It exposes speed-over-ground (`SENSOR_SPEED`), parsed from the `RMC` sentence — a GNSS receiver
  * is easy to verify on real hardware and `SENSOR_SPEED` is in the curated catalogue (which has no
- * position refIds).
+ * position refIds). A 10 Hz receiver delivers several sentences per chunk, so every reading goes
+ * into a per-device [SensorSampleBuffer] and the batch carries all of them, not just the newest.
+ * Each reading is stamped with the UTC fix time of its sentence, as one chunk delivers readings
+ * taken at different times, while the buffer measures its flush interval by the arrival time, so a
+ * device clock that differs from GNSS time does not delay the batch.
  */
 class NmeaSpeedAdapterService : LocusParserAdapterService() {
 
     /**
-     * Per-device line-reassembly buffers. [parseData] runs on a background thread and may be
-     * called concurrently for different paired peers, so every access goes through the map's
-     * monitor.
+     * State of a single paired device. [parseData] may run concurrently for different paired
+     * peers, but the base class serializes calls of one session, so the state needs no locking.
      */
-    private val lineBuffers = HashMap<String, StringBuilder>()
+    private class NmeaSession(deviceId: String, deviceTypeId: String) :
+        AdapterSession(deviceId, deviceTypeId) {
+
+        // line reassembly; a line that grows past MAX_LINE_LENGTH without a newline is dropped,
+        // so a garbage or non-line-oriented stream can't block the buffer
+        val lines = DelimiterFramer(maxFrameLength = MAX_LINE_LENGTH)
+
+        // fields of the current line
+        val tokenizer = NmeaTokenizer()
+
+        // decoded readings not yet returned to Locus
+        val samples = SensorSampleBuffer(FLUSH_INTERVAL_MS)
+    }
+
+    override fun createSession(deviceId: String, deviceTypeId: String): AdapterSession {
+        return NmeaSession(deviceId, deviceTypeId)
+    }
 
     override fun init(deviceId: String, deviceTypeId: String, bindContext: LocusBindContext): Int {
         // both device types (BT3 + USB) use the same NMEA parsing; deviceTypeId is validated here
@@ -53,70 +77,69 @@ class NmeaSpeedAdapterService : LocusParserAdapterService() {
         source: String,
         bytes: ByteArray,
     ): SensorValueBatch? {
-        // Append this chunk to the device's buffer and pull out every complete line; the
+        // Append this chunk to the device's framer and pull out every complete line; the
         // unterminated remainder (if any) stays buffered for the next call.
-        val lines = synchronized(lineBuffers) {
-            val buffer = lineBuffers.getOrPut(deviceId) { StringBuilder() }
-            buffer.append(String(bytes, Charsets.US_ASCII))
-            takeCompleteLines(buffer)
-        }
-        // Decode outside the lock (pure). Apply the newest valid reading in this batch —
-        // SensorValueBatchBuilder is last-write-wins on the refId.
-        var speedMps: Float? = null
-        for (line in lines) {
-            decodeNmeaSpeedMps(line)?.let { speedMps = it }
-        }
-        val latest = speedMps ?: return null
-        return SensorValueBatchBuilder(System.currentTimeMillis())
-            .put(LocusVariable.Speed, latest)
-            .build()
-    }
-
-    override fun shutdown(deviceId: String) {
-        // drop only this device's reassembly buffer (the base class already released its write channel)
-        synchronized(lineBuffers) {
-            lineBuffers.remove(deviceId)
+        val session = getSession<NmeaSession>(deviceId) ?: return null
+        val now = System.currentTimeMillis()
+        session.lines.append(bytes)
+        // Keep every valid reading as its own sample; the buffer returns them together once
+        // the flush interval passes, so Locus records the full 10 Hz track.
+        while (session.lines.nextFrame()) {
+            val speedMps = decodeNmeaSpeedMps(session) ?: continue
+            session.samples.addSample(decodeNmeaTime(session.tokenizer, now), now)
+                .put(LocusVariable.Speed, speedMps)
         }
+        return session.samples.flushIfDue(now)
     }
 
     /**
-     * Remove and return every complete `\n`-terminated line from [buffer] (trailing `\r` stripped),
-     * leaving any unterminated remainder in place for the next chunk. The caller holds the
-     * [lineBuffers] monitor. A remainder that grows past [MAX_LINE_LENGTH] without a newline is
-     * dropped, so a garbage or non-line-oriented stream can't grow the buffer without bound.
+     * Speed-over-ground in m/s from the current line of [session] (talker-agnostic: GPRMC / GNRMC
+     * / …). RMC field layout: `<talker>RMC,time,status,lat,N,lon,E,sog_knots,…`. Returns null for
+     * a non-RMC line, a bad checksum, a void fix (status != 'A'), or a missing / unparseable speed
+     * field. Works on byte offsets of the line, so no `String` is created per sentence.
      */
-    private fun takeCompleteLines(buffer: StringBuilder): List<String> {
-        val lines = mutableListOf<String>()
-        var newline = buffer.indexOf("\n")
-        while (newline >= 0) {
-            lines += buffer.substring(0, newline).removeSuffix("\r")
-            buffer.delete(0, newline + 1)
-            newline = buffer.indexOf("\n")
+    private fun decodeNmeaSpeedMps(session: NmeaSession): Float? {
+        val line = session.lines
+        val tokenizer = session.tokenizer
+        if (!tokenizer.parse(line.frameArray, line.frameOffset, line.frameLength)) {
+            return null
         }
-        if (buffer.length > MAX_LINE_LENGTH) {
-            buffer.setLength(0)
+        if (tokenizer.fieldCount < 8 || !tokenizer.fieldEndsWith(0, "RMC")) {
+            return null
         }
-        return lines
+        if (!tokenizer.fieldEquals(2, "A")) {
+            return null
+        }
+        val knots = tokenizer.getFloat(7)
+        if (knots.isNaN()) {
+            return null
+        }
+        return knots * KNOTS_TO_MPS
     }
 
     /**
-     * Speed-over-ground in m/s from one NMEA RMC sentence (talker-agnostic: GPRMC / GNRMC / …).
-     * RMC field layout: `<talker>RMC,time,status,lat,N,lon,E,sog_knots,…`. Returns null for a
-     * non-RMC line, a void fix (status != 'A'), or a missing / unparseable speed field.
+     * Fix time of the RMC line parsed by [tokenizer] in ms since epoch. The time field is UTC
+     * `hhmmss.sss`; the date is taken from [now], shifted by a day around midnight so the result
+     * stays the nearest to [now]. Returns [now] if the time field is missing or invalid.
      */
-    private fun decodeNmeaSpeedMps(line: String): Float? {
-        val body = line.trim()
-            .removePrefix("$")
-            .substringBefore('*')
-        val fields = body.split(",")
-        if (fields.size < 8 || !fields[0].endsWith("RMC")) {
-            return null
+    private fun decodeNmeaTime(tokenizer: NmeaTokenizer, now: Long): Long {
+        val hhmmss = tokenizer.getDouble(1)
+        if (hhmmss.isNaN() || hhmmss < 0.0 || hhmmss >= 240000.0) {
+            return now
         }
-        if (fields[2] != "A") {
-            return null
+        val hours = (hhmmss / 10000).toInt()
+        val minutes = (hhmmss / 100).toInt() % 100
+        val seconds = hhmmss % 100
+        if (minutes >= 60 || seconds >= 61.0) {
+            return now
+        }
+        val timeOfDay = hours * HOUR_MS + minutes * MINUTE_MS + (seconds * 1000).roundToLong()
+        val time = now - now % DAY_MS + timeOfDay
+        return when {
+            time - now > DAY_MS / 2 -> time - DAY_MS
+            now - time > DAY_MS / 2 -> time + DAY_MS
+            else -> time
         }
-        val knots = fields[7].toFloatOrNull() ?: return null
-        return knots * KNOTS_TO_MPS
     }
 
     companion object {
@@ -128,5 +151,13 @@ class NmeaSpeedAdapterService : LocusParserAdapterService() {
 
         // A valid NMEA sentence is <= 82 chars; well past that with no newline means garbage.
         private const val MAX_LINE_LENGTH = 512
+
+        // Readings are returned to Locus at most this often; every one of them is kept.
+        private const val FLUSH_INTERVAL_MS = 250L
+
+        // Units of the RMC fix time.
+        private const val MINUTE_MS = 60_000L
+        private const val HOUR_MS = 60 * MINUTE_MS
+        private const val DAY_MS = 24 * HOUR_MS
     }
 }